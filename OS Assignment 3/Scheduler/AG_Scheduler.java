@@ -1,204 +1,332 @@
 package Scheduler;
 
 import model.Process;
+import model.ProcessTable;
+import model.QuantumHistory;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 public class AG_Scheduler implements Scheduler {
 
-    private Map<Process, Integer> remainingQuantum = new HashMap<>();
+    // How much of each process's quantum history the run keeps
+    private final QuantumHistory.Mode quantumHistoryMode;
+
+    public AG_Scheduler() {
+        this(QuantumHistory.Mode.FULL);
+    }
+
+    public AG_Scheduler(QuantumHistory.Mode quantumHistoryMode) {
+        this.quantumHistoryMode = quantumHistoryMode;
+    }
 
     @Override
     public ScheduleResult schedule(List<Process> input, int contextSwitch) {
+        return schedule(ProcessTable.from(input), contextSwitch);
+    }
 
-        List<Process> processes = Process.copyList(input);
-        Queue<Process> readyQueue = new LinkedList<>();
-        List<String> executionOrder = new ArrayList<>();
+    @Override
+    public ScheduleResult schedule(ProcessTable processes, int contextSwitch) {
+        return schedule(processes, contextSwitch, null);
+    }
 
-        int time = 0;
-        int completed = 0;
-        Process current = null;
-        boolean forceSwitch = false;
+    /** Schedules as usual, saving a snapshot to {@code checkpoint} every so many steps (if not null). */
+    public ScheduleResult schedule(ProcessTable processes, int contextSwitch, Checkpoint checkpoint) {
+        ExecutionTimeline timeline = new ExecutionTimeline(processes);
+        RunMetrics metrics = new RunMetrics();
+        Run run = new Run(processes, quantumHistoryMode, ScheduleListener.of(timeline, metrics));
+        if (checkpoint != null) run.checkpointTo(checkpoint, timeline, metrics);
+        run.execute();
+        return result(processes, timeline, metrics, run);
+    }
 
-        // init
-        for (Process p : processes) {
-            remainingQuantum.put(p, p.getInitialQuantum());
+    /**
+     * Continues the run saved in {@code checkpoint} on a table of the same workload, to the result
+     * the run would have had uninterrupted, with the quantum history mode it was started with.
+     * Snapshots keep going to the same checkpoint.
+     */
+    public ScheduleResult resume(ProcessTable processes, Checkpoint checkpoint) throws IOException {
+        ExecutionTimeline timeline = new ExecutionTimeline(processes);
+        RunMetrics metrics = new RunMetrics();
+        Run run;
+        try (DataInputStream in = checkpoint.open()) {
+            checkpoint.readHeader(in, "AG", processes);
+            run = new Run(processes, QuantumHistory.Mode.values()[in.readByte()], ScheduleListener.of(timeline, metrics));
+            run.checkpointTo(checkpoint, timeline, metrics);
+            run.restore(in);
         }
+        run.loop();
+        return result(processes, timeline, metrics, run);
+    }
 
-        addArrived(readyQueue, processes, time, null);
+    private ScheduleResult result(ProcessTable processes, ExecutionTimeline timeline, RunMetrics metrics, Run run) {
+        // ================== RESULT ==================
+        ScheduleResult result = new ScheduleResult();
+        result.timeline = timeline;
+        result.metrics = metrics;
+        result.heapBytes = processes.heapBytes() + run.heapBytes() + timeline.heapBytes();
+        result.offHeapBytes = processes.offHeapBytes();
+        result.executionOrder = timeline.executionOrder(false);
+        result.processes = processes.asProcessList();
 
-        while (completed < processes.size()) {
+        result.avgWaitingTime = processes.averageWaitingTime();
+        result.avgTurnaroundTime = processes.averageTurnaroundTime();
 
-            if (!forceSwitch) {
-                current = readyQueue.poll();
-            }
-            forceSwitch = false;
+        return result;
+    }
 
-            if (current == null) {
-                time++;
-                addArrived(readyQueue, processes, time, null);
-                continue;
-            }
+    // Quantum updates go to the listener only; the table does not keep a history
+    @Override
+    public void stream(ProcessTable processes, int contextSwitch, ScheduleListener listener) {
+        new Run(processes, QuantumHistory.Mode.NONE, listener).execute();
+    }
 
-            executionOrder.add(current.getName());
+    // All state of one run, so a single scheduler instance can run many schedules at once
+    private static class Run {
+        private final ProcessTable processes;
+        private final ScheduleListener listener;
+        private final EventKernel kernel;
+        private final IndexedDeque readyQueue;
+        // Arrived, unfinished processes (including the running one) for the phase checks
+        private final IndexedMinHeap byPriority;
+        private final IndexedMinHeap byRemaining;
+        private int completed = 0;
+        private int current = -1;
+        private int lastRan = -1;
+        private boolean forceSwitch = false;
+
+        // Set when snapshots are taken
+        private Checkpoint checkpoint;
+        private ExecutionTimeline timeline;
+        private RunMetrics metrics;
+
+        Run(ProcessTable processes, QuantumHistory.Mode historyMode, ScheduleListener listener) {
+            this.processes = processes;
+            this.listener = listener;
+            processes.reset();
+            processes.setQuantumHistoryMode(historyMode);
+
+            kernel = new EventKernel(processes);
+            readyQueue = new IndexedDeque(processes.size());
+            byPriority = new IndexedMinHeap(processes.size(), (a, b) -> comparePriority(processes, a, b));
+            byRemaining = new IndexedMinHeap(processes.size(), (a, b) -> compareRemaining(processes, a, b));
+        }
 
-            int rq = remainingQuantum.get(current);
+        long heapBytes() {
+            return kernel.heapBytes() + readyQueue.heapBytes() + byPriority.heapBytes() + byRemaining.heapBytes();
+        }
 
-            // ================== FCFS (25%) ==================
-            int slice = (int) Math.ceil(0.25 * current.getCurrentQuantum());
-            int exe = Math.min(slice, current.getRemainingBurstTime());
+        void checkpointTo(Checkpoint checkpoint, ExecutionTimeline timeline, RunMetrics metrics) {
+            checkpoint.begin();
+            this.checkpoint = checkpoint;
+            this.timeline = timeline;
+            this.metrics = metrics;
+        }
 
-            current.execute(exe);
-            time += exe;
-            rq -= exe;
+        void execute() {
+            listener.onStart(processes);
+            addArrived(-1);
+            loop();
+        }
 
-            remainingQuantum.put(current, rq);
-            addArrived(readyQueue, processes, time, current);
+        void loop() {
+            while (completed < processes.size()) {
+                if (checkpoint != null && checkpoint.due()) checkpoint.save(this::save);
 
-            if (current.isCompleted()) {
-                finish(current, time);
-                completed++;
-                continue;
-            }
+                if (!forceSwitch) {
+                    current = readyQueue.pollFirst();
+                }
+                forceSwitch = false;
 
-            // ================== PRIORITY ==================
-            Process highestPriority = getMostPriority(processes, time);
+                if (current < 0) {
+                    kernel.idleUntilNextArrival();
+                    addArrived(-1);
+                    continue;
+                }
 
-            if (highestPriority != null && highestPriority != current) {
+                // AG switches processes at no cost, but the switch still counts
+                if (lastRan >= 0 && current != lastRan) listener.onContextSwitch(kernel.now(), 0);
+                lastRan = current;
+                processes.setStartTime(current, kernel.now());
+                listener.onDispatch(current, kernel.now());
 
-                int bonus = (int) Math.ceil(rq / 2.0);
-                current.setCurrentQuantum(current.getCurrentQuantum() + bonus);
-                current.logQuantumUpdate();
+                int rq = processes.getRemainingQuantum(current);
 
-                remainingQuantum.put(current, current.getCurrentQuantum());
-                readyQueue.add(current);
+                // ================== FCFS (25%) ==================
+                int slice = phaseLength(processes, current);
+                int exe = Math.min(slice, processes.getRemainingBurstTime(current));
 
-                current = highestPriority;
-                readyQueue.remove(highestPriority);
-                forceSwitch = true;
-                continue;
-            }
+                processes.execute(current, exe);
+                kernel.advanceBy(exe);
+                rq -= exe;
 
-            // execute another 25%
-            exe = Math.min(slice, current.getRemainingBurstTime());
-            current.execute(exe);
-            time += exe;
-            rq -= exe;
+                processes.setRemainingQuantum(current, rq);
+                byRemaining.update(current);
+                addArrived(current);
 
-            remainingQuantum.put(current, rq);
-            addArrived(readyQueue, processes, time, current);
+                if (processes.isCompleted(current)) {
+                    finish(current, kernel.now());
+                    completed++;
+                    continue;
+                }
 
-            if (current.isCompleted()) {
-                finish(current, time);
-                completed++;
-                continue;
-            }
+                // ================== PRIORITY ==================
+                int highestPriority = byPriority.peek();
 
-            // ================== SJF ==================
-            Process shortest = getShortest(processes, time);
+                if (highestPriority >= 0 && highestPriority != current) {
 
-            if (shortest != current &&
-                    shortest.getRemainingBurstTime() < current.getRemainingBurstTime()) {
+                    requeueWithBonus(processes, current, (int) Math.ceil(rq / 2.0), kernel.now(), listener);
+                    readyQueue.addLast(current);
 
-                current.setCurrentQuantum(current.getCurrentQuantum() + rq);
-                current.logQuantumUpdate();
+                    current = highestPriority;
+                    readyQueue.remove(highestPriority);
+                    forceSwitch = true;
+                    continue;
+                }
 
-                remainingQuantum.put(current, current.getCurrentQuantum());
-                readyQueue.add(current);
+                // execute another 25%
+                exe = Math.min(slice, processes.getRemainingBurstTime(current));
+                processes.execute(current, exe);
+                kernel.advanceBy(exe);
+                rq -= exe;
 
-                current = shortest;
-                readyQueue.remove(shortest);
-                forceSwitch = true;
-                continue;
-            }
+                processes.setRemainingQuantum(current, rq);
+                byRemaining.update(current);
+                addArrived(current);
+
+                if (processes.isCompleted(current)) {
+                    finish(current, kernel.now());
+                    completed++;
+                    continue;
+                }
+
+                // ================== SJF ==================
+                int shortest = byRemaining.peek();
+
+                if (shortest != current &&
+                        processes.getRemainingBurstTime(shortest) < processes.getRemainingBurstTime(current)) {
+
+                    requeueWithBonus(processes, current, rq, kernel.now(), listener);
+                    readyQueue.addLast(current);
 
-            // run remaining quantum
-            exe = Math.min(rq, current.getRemainingBurstTime());
-            current.execute(exe);
-            time += exe;
-            rq -= exe;
+                    current = shortest;
+                    readyQueue.remove(shortest);
+                    forceSwitch = true;
+                    continue;
+                }
+
+                // run remaining quantum
+                exe = Math.min(rq, processes.getRemainingBurstTime(current));
+                processes.execute(current, exe);
+                kernel.advanceBy(exe);
+                rq -= exe;
 
-            remainingQuantum.put(current, rq);
-            addArrived(readyQueue, processes, time, current);
+                processes.setRemainingQuantum(current, rq);
+                byRemaining.update(current);
+                addArrived(current);
+
+                if (processes.isCompleted(current)) {
+                    finish(current, kernel.now());
+                    completed++;
+                    continue;
+                }
 
-            if (current.isCompleted()) {
-                finish(current, time);
-                completed++;
-                continue;
+                // ================== QUANTUM EXHAUSTED ==================
+                requeueWithBonus(processes, current, 2, kernel.now(), listener);
+                readyQueue.addLast(current);
             }
 
-            // ================== QUANTUM EXHAUSTED ==================
-            current.setCurrentQuantum(current.getCurrentQuantum() + 2);
-            current.logQuantumUpdate();
-            remainingQuantum.put(current, current.getCurrentQuantum());
-            readyQueue.add(current);
+            listener.onEnd(kernel.now());
         }
 
-        // ================== RESULT ==================
-        ScheduleResult result = new ScheduleResult();
-        result.executionOrder = executionOrder;
-        result.processes = processes;
+        // ================== CHECKPOINTS ==================
 
-        double wt = 0, tat = 0;
-        for (Process p : processes) {
-            wt += p.getWaitingTime();
-            tat += p.getTurnaroundTime();
+        // The heaps hold exactly the admitted, unfinished processes; their order follows from the rows
+        private void save(DataOutputStream out) throws IOException {
+            checkpoint.writeHeader(out, "AG", processes);
+            out.writeByte(processes.getQuantumHistoryMode().ordinal());
+            checkpoint.writeState(out, processes, kernel, timeline, metrics);
+
+            out.writeInt(completed);
+            out.writeInt(current);
+            out.writeInt(lastRan);
+            out.writeBoolean(forceSwitch);
+            out.writeInt(readyQueue.size());
+            for (int pid = readyQueue.peekFirst(); pid >= 0; pid = readyQueue.next(pid)) out.writeInt(pid);
         }
 
-        result.avgWaitingTime = wt / processes.size();
-        result.avgTurnaroundTime = tat / processes.size();
+        // Reads the rest of a snapshot whose header and history mode were read by the caller
+        private void restore(DataInputStream in) throws IOException {
+            checkpoint.readState(in, processes, kernel, timeline, metrics);
+
+            completed = in.readInt();
+            current = in.readInt();
+            lastRan = in.readInt();
+            forceSwitch = in.readBoolean();
+            for (int i = in.readInt(); i > 0; i--) readyQueue.addLast(in.readInt());
+            for (int i = 0; i < kernel.admittedCount(); i++) {
+                int pid = kernel.admittedPid(i);
+                if (!processes.isCompleted(pid)) {
+                    byPriority.add(pid);
+                    byRemaining.add(pid);
+                }
+            }
+        }
 
-        return result;
+        // ================== HELPERS ==================
+
+        private void finish(int pid, int time) {
+            byPriority.remove(pid);
+            byRemaining.remove(pid);
+            complete(processes, pid, time, listener);
+        }
+
+        private void addArrived(int running) {
+            // Each process is admitted exactly once, when the clock passes its arrival.
+            // The deque tracks membership itself, so no contains() scan is needed.
+            kernel.admitArrivals(pid -> {
+                if (!processes.isCompleted(pid) && pid != running) {
+                    readyQueue.addLast(pid);
+                    byPriority.add(pid);
+                    byRemaining.add(pid);
+                }
+            });
+        }
     }
 
-    // ================== HELPERS ==================
+    // ================== RULES SHARED WITH SmpScheduler ==================
 
-    private void finish(Process p, int time) {
-        p.setCompletionTime(time);
-        p.setTurnaroundTime(time - p.getArrivalTime());
-        p.setWaitingTime(p.getTurnaroundTime() - p.getTotalBurstTime());
-        p.setCurrentQuantum(0);
-        p.logQuantumUpdate();
+    // Ties go to the earlier input position, like a front-to-back scan
+    static int comparePriority(ProcessTable processes, int a, int b) {
+        int c = Integer.compare(processes.getDynamicPriority(a), processes.getDynamicPriority(b));
+        return c != 0 ? c : Integer.compare(a, b);
     }
 
-    private void addArrived(
-            Queue<Process> q,
-            List<Process> all,
-            int time,
-            Process running
-    ) {
-        for (Process p : all) {
-            if (p.getArrivalTime() <= time &&
-                    !p.isCompleted() &&
-                    p != running &&
-                    !q.contains(p)) {
-                q.add(p);
-            }
-        }
+    static int compareRemaining(ProcessTable processes, int a, int b) {
+        int c = Integer.compare(processes.getRemainingBurstTime(a), processes.getRemainingBurstTime(b));
+        return c != 0 ? c : Integer.compare(a, b);
     }
 
-    private Process getMostPriority(List<Process> all, int time) {
-        Process best = null;
-        for (Process p : all) {
-            if (p.getArrivalTime() <= time && !p.isCompleted()) {
-                if (best == null ||
-                        p.getDynamicPriority() < best.getDynamicPriority()) {
-                    best = p;
-                }
-            }
-        }
-        return best;
+    // Each of the first two phases of a turn runs 25% of the quantum
+    static int phaseLength(ProcessTable processes, int pid) {
+        return (int) Math.ceil(0.25 * processes.getCurrentQuantum(pid));
     }
 
-    private Process getShortest(List<Process> all, int time) {
-        Process best = null;
-        for (Process p : all) {
-            if (p.getArrivalTime() <= time && !p.isCompleted()) {
-                if (best == null ||
-                        p.getRemainingBurstTime() < best.getRemainingBurstTime()) {
-                    best = p;
-                }
-            }
-        }
-        return best;
+    // The process leaves the CPU with its quantum grown by bonus and starts its next turn with all of it
+    static void requeueWithBonus(ProcessTable processes, int pid, int bonus, int time, ScheduleListener listener) {
+        processes.setCurrentQuantum(pid, processes.getCurrentQuantum(pid) + bonus);
+        processes.logQuantumUpdate(pid);
+        listener.onQuantumUpdate(pid, processes.getCurrentQuantum(pid), time);
+        listener.onPreemption(pid, time);
+        processes.setRemainingQuantum(pid, processes.getCurrentQuantum(pid));
+    }
+
+    static void complete(ProcessTable processes, int pid, int time, ScheduleListener listener) {
+        processes.complete(pid, time);
+        processes.setCurrentQuantum(pid, 0);
+        processes.logQuantumUpdate(pid);
+        listener.onQuantumUpdate(pid, 0, time);
+        listener.onCompletion(pid, time);
     }
 }
@@ -0,0 +1,88 @@
+package Scheduler;
+
+import model.ProcessTable;
+
+/**
+ * Running totals of a streamed run. Uses constant memory regardless of how many
+ * processes or events the run has.
+ */
+public class AggregatingListener implements ScheduleListener {
+
+    private ProcessTable processes;
+    private long dispatches;
+    private long preemptions;
+    private long completions;
+    private long quantumUpdates;
+    private long agingSteps;
+    private long migrations;
+    private double totalWaitingTime;
+    private double totalTurnaroundTime;
+    private int maxTurnaroundTime;
+    private int endTime;
+
+    @Override
+    public void onStart(ProcessTable processes) {
+        this.processes = processes;
+        dispatches = preemptions = completions = quantumUpdates = agingSteps = migrations = 0;
+        totalWaitingTime = totalTurnaroundTime = 0;
+        maxTurnaroundTime = 0;
+        endTime = 0;
+    }
+
+    @Override
+    public void onDispatch(int pid, int time) { dispatches++; }
+
+    @Override
+    public void onPreemption(int pid, int time) { preemptions++; }
+
+    @Override
+    public void onRounds(int time, int[] order, int rounds, int switchCost, int slice) {
+        dispatches += (long) rounds * order.length;
+        preemptions += (long) rounds * order.length;
+    }
+
+    @Override
+    public void onCompletion(int pid, int time) {
+        completions++;
+        totalWaitingTime += processes.getWaitingTime(pid);
+        totalTurnaroundTime += processes.getTurnaroundTime(pid);
+        maxTurnaroundTime = Math.max(maxTurnaroundTime, processes.getTurnaroundTime(pid));
+    }
+
+    @Override
+    public void onQuantumUpdate(int pid, int quantum, int time) { quantumUpdates++; }
+
+    @Override
+    public void onAging(int pid, int priority, int time) { agingSteps++; }
+
+    @Override
+    public void onMigration(int pid, int fromCore, int toCore, int time) { migrations++; }
+
+    @Override
+    public void onEnd(int time) { endTime = time; }
+
+    public long getDispatches() { return dispatches; }
+    public long getPreemptions() { return preemptions; }
+    public long getCompletions() { return completions; }
+    public long getQuantumUpdates() { return quantumUpdates; }
+    public long getAgingSteps() { return agingSteps; }
+    public long getMigrations() { return migrations; }
+    public int getMaxTurnaroundTime() { return maxTurnaroundTime; }
+    public int getEndTime() { return endTime; }
+
+    public double averageWaitingTime() {
+        return completions == 0 ? 0 : totalWaitingTime / completions;
+    }
+
+    public double averageTurnaroundTime() {
+        return completions == 0 ? 0 : totalTurnaroundTime / completions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("completed %d, dispatches %d, preemptions %d, quantum updates %d, aging steps %d, "
+                        + "migrations %d, avg waiting %.2f, avg turnaround %.2f, max turnaround %d, end %d",
+                completions, dispatches, preemptions, quantumUpdates, agingSteps, migrations,
+                averageWaitingTime(), averageTurnaroundTime(), maxTurnaroundTime, endTime);
+    }
+}
@@ -0,0 +1,242 @@
+package Scheduler;
+
+import model.Process;
+import model.ProcessTable;
+import java.util.List;
+
+/**
+ * Completely-fair scheduling in the style of Linux CFS.
+ *
+ * Every process has a weight derived from its priority and a virtual runtime that grows by the
+ * CPU time it gets divided by its weight. The runnable process with the smallest virtual runtime
+ * runs next, for a slice of {@code targetLatency} shared out by weight, but never shorter than
+ * the minimum granularity or the context switch that pays for it. A new process starts at the
+ * smallest virtual runtime of the processes already runnable, so it cannot claim CPU time it
+ * was not there for. Dispatch costs O(log n).
+ *
+ * The result reports, per process, how the CPU time it received compares to its weighted share.
+ */
+public class CFSScheduler implements Scheduler {
+
+    // Linux sched_prio_to_weight, nice -20..19; priority 1 is nice 0
+    private static final int[] WEIGHTS = {
+            88761, 71755, 56483, 46273, 36291, 29154, 23254, 18705, 14949, 11916,
+            9548, 7620, 6100, 4904, 3906, 3121, 2501, 1991, 1586, 1277,
+            1024, 820, 655, 526, 423, 335, 272, 215, 172, 137,
+            110, 87, 70, 56, 45, 36, 29, 23, 18, 15
+    };
+    private static final int NICE_0 = 20;
+    private static final long NICE_0_WEIGHT = 1024;
+
+    private final int targetLatency;
+    private final int minGranularity;
+
+    public CFSScheduler() {
+        this(20, 2);
+    }
+
+    public CFSScheduler(int targetLatency, int minGranularity) {
+        if (targetLatency < 1 || minGranularity < 1) throw new IllegalArgumentException("latency and granularity must be at least 1");
+        this.targetLatency = targetLatency;
+        this.minGranularity = minGranularity;
+    }
+
+    /** Load weight of a priority: 1024 for priority 1, about 1.25 times less for every step down. */
+    public static int weight(int priority) {
+        return WEIGHTS[Math.max(0, Math.min(WEIGHTS.length - 1, NICE_0 + priority - 1))];
+    }
+
+    @Override
+    public ScheduleResult schedule(List<Process> input, int contextSwitchTime) {
+        return schedule(ProcessTable.from(input), contextSwitchTime);
+    }
+
+    @Override
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime) {
+        ScheduleResult result = new ScheduleResult();
+        ExecutionTimeline timeline = new ExecutionTimeline(table);
+        RunMetrics metrics = new RunMetrics();
+        Run run = new Run(table, targetLatency, Math.max(minGranularity, contextSwitchTime), ScheduleListener.of(timeline, metrics));
+        run.execute(contextSwitchTime);
+
+        result.timeline = timeline;
+        result.metrics = metrics;
+        result.executionOrder = timeline.executionOrder(false);
+        result.processes = table.asProcessList();
+        result.avgWaitingTime = table.averageWaitingTime();
+        result.avgTurnaroundTime = table.averageTurnaroundTime();
+        result.fairness = run.fairness;
+        result.fairnessIndex = jainIndex(run.fairness);
+        result.heapBytes = table.heapBytes() + run.heapBytes() + timeline.heapBytes();
+        result.offHeapBytes = table.offHeapBytes();
+        return result;
+    }
+
+    @Override
+    public void stream(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        new Run(table, targetLatency, Math.max(minGranularity, contextSwitchTime), listener).execute(contextSwitchTime);
+    }
+
+    // (sum x)^2 / (n * sum x^2): 1 when all ratios are equal, 1/n when one process gets everything
+    private static double jainIndex(double[] values) {
+        double sum = 0, squares = 0;
+        for (double v : values) {
+            sum += v;
+            squares += v * v;
+        }
+        return squares == 0 ? 1 : sum * sum / (values.length * squares);
+    }
+
+    // All state of one run, so a single scheduler instance can run many schedules at once
+    private static class Run {
+        private final ProcessTable processes;
+        private final int targetLatency;
+        private final int granularity;
+        private final ScheduleListener listener;
+        private final EventKernel kernel;
+        private final IndexedMinHeap ready;   // runnable processes except the running one, by virtual runtime
+
+        // Virtual runtime in units of 1/1024 of a time unit at weight 1024
+        private final long[] vruntime;
+        private final int[] weight;
+        private long minVruntime = 0;
+        private long runnableWeight = 0;      // includes the running process
+
+        // Integral of dt / runnableWeight over the time the CPU runs processes (not idle gaps or
+        // context switches); a process's fair share of CPU time is its weight times the growth
+        // of this integral between its arrival and its completion
+        private double shareIntegral = 0;
+        private int integratedUntil = 0;
+        private final double[] shareAtArrival;
+        final double[] fairness;
+
+        private int completed = 0;
+        private int running = -1;
+        private int lastRan = -1;
+        private int sliceEnd;
+
+        Run(ProcessTable processes, int targetLatency, int granularity, ScheduleListener listener) {
+            this.processes = processes;
+            this.targetLatency = targetLatency;
+            this.granularity = granularity;
+            this.listener = listener;
+            processes.reset();
+
+            int n = processes.size();
+            kernel = new EventKernel(processes);
+            ready = new IndexedMinHeap(n, this::compareVruntime);
+            vruntime = new long[n];
+            weight = new int[n];
+            shareAtArrival = new double[n];
+            fairness = new double[n];
+            for (int pid = 0; pid < n; pid++) weight[pid] = weight(processes.getInitialPriority(pid));
+        }
+
+        long heapBytes() {
+            int n = vruntime.length;
+            return kernel.heapBytes() + ready.heapBytes() + 4 * 16 + 8L * n + 4L * n + 8L * n + 8L * n;
+        }
+
+        void execute(int contextSwitchTime) {
+            listener.onStart(processes);
+
+            while (completed < processes.size()) {
+                admitArrivals();
+
+                if (running < 0) {
+                    int next = ready.poll();
+                    if (next < 0) {
+                        kernel.idleUntilNextArrival();
+                        continue;
+                    }
+
+                    if (lastRan >= 0 && next != lastRan) {
+                        integrate();
+                        listener.onContextSwitch(kernel.now(), contextSwitchTime);
+                        kernel.contextSwitch(contextSwitchTime);
+                        integratedUntil = kernel.now();   // the switch is nobody's CPU time
+                        admitArrivals();
+                    }
+
+                    running = next;
+                    sliceEnd = kernel.now() + slice(running);
+                    processes.setStartTime(running, kernel.now());
+                    listener.onDispatch(running, kernel.now());
+                }
+
+                // Runs until it completes, its slice ends or the next arrival
+                int start = kernel.now();
+                kernel.advanceToNextEvent(start + processes.getRemainingBurstTime(running), sliceEnd, EventKernel.NO_EVENT);
+
+                int ran = kernel.now() - start;
+                processes.execute(running, ran);
+                vruntime[running] += ran * NICE_0_WEIGHT * 1024 / weight[running];
+                lastRan = running;
+
+                if (processes.isCompleted(running)) {
+                    completed++;
+                    integrate();
+                    runnableWeight -= weight[running];
+                    double fairShare = weight[running] * (shareIntegral - shareAtArrival[running]);
+                    fairness[running] = fairShare > 0 ? processes.getTotalBurstTime(running) / fairShare : 1;
+
+                    processes.complete(running, kernel.now());
+                    listener.onCompletion(running, kernel.now());
+                    running = -1;
+                } else if (kernel.now() >= sliceEnd) {
+                    // Arrivals at this instant compete for the next slice too
+                    admitArrivals();
+                    ready.add(running);
+                    if (ready.peek() == running) {
+                        ready.remove(running);
+                        sliceEnd = kernel.now() + slice(running);
+                    } else {
+                        listener.onPreemption(running, kernel.now());
+                        running = -1;
+                    }
+                }
+            }
+
+            listener.onEnd(kernel.now());
+        }
+
+        private void admitArrivals() {
+            kernel.admitArrivalsInArrivalOrder(pid -> {
+                updateMinVruntime();
+                vruntime[pid] = minVruntime;
+                integrate();
+                runnableWeight += weight[pid];
+                shareAtArrival[pid] = shareIntegral;
+                ready.add(pid);
+            });
+        }
+
+        // Never moves backwards, so a process that waited long does not get a burst of catch-up time
+        private void updateMinVruntime() {
+            long min = Long.MAX_VALUE;
+            if (running >= 0) min = vruntime[running];
+            if (!ready.isEmpty()) min = Math.min(min, vruntime[ready.peek()]);
+            if (min != Long.MAX_VALUE) minVruntime = Math.max(minVruntime, min);
+        }
+
+        private void integrate() {
+            int now = kernel.now();
+            if (runnableWeight > 0) shareIntegral += (double) (now - integratedUntil) / runnableWeight;
+            integratedUntil = now;
+        }
+
+        // The process's weighted part of the target latency, but at least the granularity
+        private int slice(int pid) {
+            long total = runnableWeight;
+            long share = total == 0 ? targetLatency : targetLatency * weight[pid] / total;
+            return (int) Math.max(granularity, share);
+        }
+
+        private int compareVruntime(int a, int b) {
+            int c = Long.compare(vruntime[a], vruntime[b]);
+            if (c != 0) return c;
+            c = Integer.compare(processes.getArrivalTime(a), processes.getArrivalTime(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package Scheduler;
+
+import model.ProcessTable;
+import model.QuantumHistory;
+import model.Workload;
+import model.WorkloadReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Periodic snapshots of a running {@link AG_Scheduler} or {@link PriorityScheduler} schedule,
+ * from which the run can be resumed to the same result it would have had uninterrupted.
+ *
+ * A snapshot holds the clock and arrival cursor, the scheduling state of every admitted
+ * process that has not finished (remaining burst and quantum, dynamic priority, times) with
+ * its quantum history, the ready queues, the last timeline segment and the switch counters.
+ * Processes that have not arrived yet are still in their initial state and are not written.
+ * Snapshots are gzipped and replace the previous one atomically, so a run that dies mid-write
+ * keeps the last good one.
+ *
+ * What can no longer change goes to a journal next to the snapshot ({@code <checkpoint>.journal})
+ * instead, written once: each snapshot appends the timeline segments and the rows of the
+ * processes finished since the one before, and records how long the journal was. A resumed run
+ * reads the journal up to that length and drops anything after it.
+ *
+ * Usage: java Scheduler.Checkpoint &lt;AG|Priority&gt; &lt;workload.json | workload.trace&gt; &lt;checkpoint&gt; [steps]
+ * runs the schedule with a snapshot every {@code steps} scheduler steps, resuming from the
+ * checkpoint if it exists, and deletes the checkpoint once the run completes.
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x53434B50;   // "SCKP"
+    private static final int VERSION = 2;
+    private static final int SEGMENT = 0, ROW = 1;   // journal record tags
+
+    private final Path file;
+    private final Path journal;
+    private final int interval;
+    private int stepsUntilSnapshot;
+
+    // Input fingerprint of the table being run; computed once per table
+    private ProcessTable fingerprinted;
+    private long fingerprint;
+
+    // What the journal of the current run holds: its length, how many timeline segments and
+    // finished rows, and which rows (the first journaledUpTo admitted processes are all among them)
+    private long journalBytes;
+    private int journalSegments;
+    private int journalRows;
+    private BitSet journaled = new BitSet();
+    private int journaledUpTo;
+
+    /** Snapshots go to {@code file}, one every {@code interval} scheduler steps. */
+    public Checkpoint(Path file, int interval) {
+        if (interval < 1) throw new IllegalArgumentException("interval must be at least 1");
+        this.file = file;
+        this.journal = file.resolveSibling(file.getFileName() + ".journal");
+        this.interval = interval;
+        this.stepsUntilSnapshot = interval;
+    }
+
+    public Path getFile() { return file; }
+
+    public boolean exists() { return Files.exists(file); }
+
+    /** Deletes the snapshot and its journal. */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(journal);
+    }
+
+    /** Writes one section of a snapshot. */
+    interface Section {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // Called by a run before it saves or restores anything: its journal starts out empty
+    void begin() {
+        journalBytes = 0;
+        journalSegments = 0;
+        journalRows = 0;
+        journaled = new BitSet();
+        journaledUpTo = 0;
+    }
+
+    // Called by a run once per step, at a point where its state is complete
+    boolean due() {
+        if (--stepsUntilSnapshot > 0) return false;
+        stepsUntilSnapshot = interval;
+        return true;
+    }
+
+    void save(Section snapshot) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            // Snapshots are written often and read once: favour speed over size
+            GZIPOutputStream gzip = new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16) {
+                { def.setLevel(Deflater.BEST_SPEED); }
+            };
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip))) {
+                snapshot.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write checkpoint " + file, e);
+        }
+    }
+
+    DataInputStream open() throws IOException {
+        return new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file), 1 << 16)));
+    }
+
+    // ================= Common sections =================
+
+    void writeHeader(DataOutputStream out, String scheduler, ProcessTable processes) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(scheduler);
+        out.writeInt(processes.size());
+        out.writeLong(fingerprint(processes));
+    }
+
+    void readHeader(DataInputStream in, String scheduler, ProcessTable processes) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("not a checkpoint: " + file);
+        String saved = in.readUTF();
+        if (!saved.equals(scheduler)) throw new IOException("checkpoint " + file + " is for " + saved + ", not " + scheduler);
+        if (in.readInt() != processes.size() || in.readLong() != fingerprint(processes)) {
+            throw new IOException("checkpoint " + file + " is for a different workload");
+        }
+    }
+
+    /**
+     * Clock, unfinished admitted rows and their quantum histories, the last timeline segment and
+     * switch counters; the earlier segments and finished rows are appended to the journal.
+     */
+    void writeState(DataOutputStream out, ProcessTable processes, EventKernel kernel,
+                    ExecutionTimeline timeline, RunMetrics metrics) throws IOException {
+        appendJournal(processes, kernel, timeline);
+        int admitted = kernel.admittedCount();
+        out.writeInt(kernel.now());
+        out.writeInt(admitted);
+        out.writeLong(journalBytes);
+        out.writeInt(journalSegments);
+        out.writeInt(journalRows);
+
+        for (int i = journaledUpTo; i < admitted; i++) {
+            int pid = kernel.admittedPid(i);
+            if (!journaled.get(pid)) writeRow(out, processes, pid);
+        }
+
+        // The last segment may still be extended, so it is not journaled yet
+        out.writeBoolean(timeline.size() > journalSegments);
+        if (timeline.size() > journalSegments) writeSegment(out, timeline, journalSegments);
+
+        out.writeLong(metrics.getContextSwitches());
+        out.writeLong(metrics.getContextSwitchTime());
+    }
+
+    /** Restores what {@link #writeState} wrote into a freshly reset table and new timeline and metrics. */
+    void readState(DataInputStream in, ProcessTable processes, EventKernel kernel,
+                   ExecutionTimeline timeline, RunMetrics metrics) throws IOException {
+        int time = in.readInt();
+        int admitted = in.readInt();
+        kernel.restore(time, admitted);
+        readJournal(in.readLong(), in.readInt(), in.readInt(), processes, kernel, timeline);
+
+        for (int i = journaledUpTo; i < admitted; i++) {
+            int pid = kernel.admittedPid(i);
+            if (!journaled.get(pid)) readRow(in, processes, pid);
+        }
+        if (in.readBoolean()) timeline.add(in.readInt(), in.readInt(), in.readInt());
+
+        // Completed processes are recorded again; the counters are taken as saved
+        metrics.onStart(processes);
+        for (int i = 0; i < admitted; i++) {
+            int pid = kernel.admittedPid(i);
+            if (processes.isCompleted(pid)) metrics.onCompletion(pid, processes.getCompletionTime(pid));
+        }
+        metrics.restoreContextSwitches(in.readLong(), in.readLong());
+    }
+
+    // Appends the segments before the last one and the finished rows that are not journaled yet
+    private void appendJournal(ProcessTable processes, EventKernel kernel, ExecutionTimeline timeline) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (; journalSegments < timeline.size() - 1; journalSegments++) {
+            out.writeByte(SEGMENT);
+            writeSegment(out, timeline, journalSegments);
+        }
+        int admitted = kernel.admittedCount();
+        for (int i = journaledUpTo; i < admitted; i++) {
+            int pid = kernel.admittedPid(i);
+            if (journaled.get(pid) || !processes.isCompleted(pid)) continue;
+            out.writeByte(ROW);
+            out.writeInt(pid);
+            writeRow(out, processes, pid);
+            journaled.set(pid);
+            journalRows++;
+        }
+        while (journaledUpTo < admitted && journaled.get(kernel.admittedPid(journaledUpTo))) journaledUpTo++;
+
+        // Anything past the length the last snapshot recorded is from a save that did not finish
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(journalBytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) journalBytes += channel.write(buffer, journalBytes);
+        }
+    }
+
+    // Reads the records a snapshot counted; the journal may go on past them
+    private void readJournal(long length, int segments, int rows, ProcessTable processes, EventKernel kernel,
+                             ExecutionTimeline timeline) throws IOException {
+        journalBytes = length;
+        journalSegments = segments;
+        journalRows = rows;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal), 1 << 16))) {
+            for (int records = segments + rows; records > 0; records--) {
+                int tag = in.readByte();
+                if (tag == SEGMENT) {
+                    timeline.add(in.readInt(), in.readInt(), in.readInt());
+                } else if (tag == ROW) {
+                    int pid = in.readInt();
+                    readRow(in, processes, pid);
+                    journaled.set(pid);
+                } else {
+                    throw new IOException("corrupt checkpoint journal " + journal);
+                }
+            }
+        }
+        if (timeline.size() != segments || journaled.cardinality() != rows) {
+            throw new IOException("checkpoint journal " + journal + " does not match " + file);
+        }
+        while (journaledUpTo < kernel.admittedCount() && journaled.get(kernel.admittedPid(journaledUpTo))) journaledUpTo++;
+    }
+
+    private static void writeSegment(DataOutputStream out, ExecutionTimeline timeline, int segment) throws IOException {
+        out.writeInt(timeline.getPid(segment));
+        out.writeInt(timeline.getStart(segment));
+        out.writeInt(timeline.getEnd(segment));
+    }
+
+    // The scheduling state of one row, then its quantum history if it has updates
+    private static void writeRow(DataOutputStream out, ProcessTable processes, int pid) throws IOException {
+        out.writeInt(processes.getRemainingBurstTime(pid));
+        out.writeInt(processes.getCurrentQuantum(pid));
+        out.writeInt(processes.getRemainingQuantum(pid));
+        out.writeInt(processes.getDynamicPriority(pid));
+        out.writeInt(processes.getLastUpdate(pid));
+        out.writeInt(processes.getStartTime(pid));
+        out.writeInt(processes.getCompletionTime(pid));
+        out.writeInt(processes.getWaitingTime(pid));
+        out.writeInt(processes.getTurnaroundTime(pid));
+
+        // Histories without updates are the initial quantum alone
+        QuantumHistory history = processes.getQuantumHistoryMode() == QuantumHistory.Mode.NONE
+                ? null : processes.getQuantumHistory(pid);
+        out.writeBoolean(history != null && history.count() > 1);
+        if (history != null && history.count() > 1) history.writeTo(out);
+    }
+
+    private static void readRow(DataInputStream in, ProcessTable processes, int pid) throws IOException {
+        processes.setRemainingBurstTime(pid, in.readInt());
+        processes.setCurrentQuantum(pid, in.readInt());
+        processes.setRemainingQuantum(pid, in.readInt());
+        processes.setDynamicPriority(pid, in.readInt());
+        processes.setLastUpdate(pid, in.readInt());
+        processes.setStartTime(pid, in.readInt());
+        processes.setCompletionTime(pid, in.readInt());
+        processes.setWaitingTime(pid, in.readInt());
+        processes.setTurnaroundTime(pid, in.readInt());
+        if (in.readBoolean()) processes.setQuantumHistory(pid, QuantumHistory.readFrom(in));
+    }
+
+    // Guards against resuming with another workload; names are left out to keep this cheap
+    private long fingerprint(ProcessTable processes) {
+        if (fingerprinted == processes) return fingerprint;
+        long h = processes.size();
+        for (int pid = 0; pid < processes.size(); pid++) {
+            h = 31 * h + processes.getArrivalTime(pid);
+            h = 31 * h + processes.getTotalBurstTime(pid);
+            h = 31 * h + processes.getInitialPriority(pid);
+            h = 31 * h + processes.getInitialQuantum(pid);
+        }
+        fingerprinted = processes;
+        fingerprint = h;
+        return h;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java Scheduler.Checkpoint <AG|Priority> <workload.json|workload.trace> <checkpoint> [steps]");
+            return;
+        }
+        Workload workload = new WorkloadReader(ProcessTable.Storage.HEAP, false).read(new File(args[1]));
+        Checkpoint checkpoint = new Checkpoint(Paths.get(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000);
+        ProcessTable table = workload.processes.newRun();
+        boolean resuming = checkpoint.exists();
+        if (resuming) System.out.println("Resuming from " + checkpoint.getFile());
+
+        ScheduleResult result;
+        switch (args[0]) {
+            case "AG":
+                AG_Scheduler ag = new AG_Scheduler();
+                result = resuming ? ag.resume(table, checkpoint) : ag.schedule(table, workload.contextSwitch, checkpoint);
+                break;
+            case "Priority":
+                PriorityScheduler priority = new PriorityScheduler();
+                result = resuming ? priority.resume(table, checkpoint)
+                        : priority.schedule(table, workload.contextSwitch, workload.agingInterval, checkpoint);
+                break;
+            default:
+                throw new IllegalArgumentException("Checkpoints are supported for AG and Priority, not " + args[0]);
+        }
+
+        System.out.printf("Average Waiting Time: %.2f%n", result.avgWaitingTime);
+        System.out.printf("Average Turnaround Time: %.2f%n", result.avgTurnaroundTime);
+        System.out.println("Run Metrics: " + result.metrics);
+        checkpoint.delete();
+    }
+}
@@ -0,0 +1,185 @@
+package Scheduler;
+
+import model.ProcessTable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Discrete-event clock shared by all schedulers.
+ *
+ * Instead of advancing one time unit at a time, a scheduler asks the kernel to
+ * jump straight to the next moment where something can change: a process
+ * arrival, the completion of the running process, the end of its quantum, the
+ * end of a context switch, or the next aging step. The cost of a simulation is
+ * therefore proportional to the number of events, not to the total burst time.
+ *
+ * Arrivals are served from an arrival-sorted cursor. Processes are identified
+ * by their pid in the {@link ProcessTable}.
+ *
+ * The clock is an int, like every time in the table, and {@link #NO_EVENT} is the one value it
+ * never reaches. A run that would take it that far fails with an {@link ArithmeticException}
+ * instead of wrapping.
+ */
+public class EventKernel {
+
+    /** Sentinel for "no such event pending". */
+    public static final int NO_EVENT = Integer.MAX_VALUE;
+
+    private final int size;
+    private final int[] arrivals;       // arrival times in admission order
+    private final int[] byArrival;      // pids sorted by (arrival, pid); null if the table already is
+    private int admitted = 0;           // the first `admitted` in admission order were handed to the scheduler
+    private int horizon = 0;            // the first `horizon` in admission order have arrival <= time
+    private int[] batch = new int[16];
+    private int time = 0;
+
+    public EventKernel(ProcessTable table) {
+        this.size = table.size();
+        this.arrivals = new int[size];
+
+        boolean sorted = true;
+        for (int pid = 0; pid < size; pid++) {
+            arrivals[pid] = table.getArrivalTime(pid);
+            if (pid > 0 && arrivals[pid] < arrivals[pid - 1]) sorted = false;
+        }
+
+        if (sorted) {
+            this.byArrival = null;
+            return;
+        }
+
+        // Sort (arrival, pid) pairs packed into longs to avoid boxing
+        long[] keys = new long[size];
+        for (int pid = 0; pid < size; pid++) {
+            keys[pid] = ((long) arrivals[pid] << 32) | pid;
+        }
+        Arrays.sort(keys);
+
+        this.byArrival = new int[size];
+        for (int i = 0; i < size; i++) {
+            byArrival[i] = (int) keys[i];
+            arrivals[i] = (int) (keys[i] >> 32);
+        }
+    }
+
+    public int now() {
+        return time;
+    }
+
+    public boolean hasPendingArrivals() {
+        return admitted < size;
+    }
+
+    /** Arrival time of the first process arriving strictly after now, or {@link #NO_EVENT}. */
+    public int nextArrivalTime() {
+        while (horizon < size && arrivals[horizon] <= time) {
+            horizon++;
+        }
+        return horizon < size ? arrivals[horizon] : NO_EVENT;
+    }
+
+    /**
+     * Hands every process that has arrived by now and was not admitted before to the sink.
+     * A batch is delivered in pid order, which is the order a full scan of the input list would find them in.
+     */
+    public void admitArrivals(IntConsumer sink) {
+        if (byArrival == null) {
+            while (admitted < size && arrivals[admitted] <= time) {
+                sink.accept(admitted++);
+            }
+            return;
+        }
+
+        int count = 0;
+        while (admitted < size && arrivals[admitted] <= time) {
+            if (count == batch.length) batch = Arrays.copyOf(batch, count * 2);
+            batch[count++] = byArrival[admitted++];
+        }
+        if (count > 1) Arrays.sort(batch, 0, count);
+        for (int i = 0; i < count; i++) {
+            sink.accept(batch[i]);
+        }
+    }
+
+    /**
+     * Like {@link #admitArrivals}, but a batch is delivered in (arrival, pid) order,
+     * as if the input list had been stably sorted by arrival time first.
+     */
+    public void admitArrivalsInArrivalOrder(IntConsumer sink) {
+        while (admitted < size && arrivals[admitted] <= time) {
+            sink.accept(byArrival == null ? admitted : byArrival[admitted]);
+            admitted++;
+        }
+    }
+
+    /**
+     * Moves the clock to the earliest of the given event times and the next arrival.
+     * Pass {@link #NO_EVENT} for events that are not pending. The caller works out which of
+     * its events are due from the new time.
+     */
+    public void advanceToNextEvent(int completionAt, int quantumExpiryAt, int agingStepAt) {
+        int next = Math.min(Math.min(completionAt, quantumExpiryAt), Math.min(agingStepAt, nextArrivalTime()));
+
+        if (next == NO_EVENT) {
+            throw new IllegalStateException("No pending event at time " + time + ", or the next one is past the int clock");
+        }
+        // Event times are now plus something; one that wrapped around lies before now
+        if (next < time) throw overflow();
+        time = next;
+    }
+
+    /** Runs for a fixed amount of time, e.g. a scheduler phase whose length is already known. */
+    public void advanceBy(int duration) {
+        time = later(duration);
+    }
+
+    /** Approximate heap bytes of the arrival index. */
+    public long heapBytes() {
+        return 40 + 16 + 4L * arrivals.length + (byArrival == null ? 0 : 16 + 4L * byArrival.length) + 16 + 4L * batch.length;
+    }
+
+    /** Number of processes handed to the scheduler so far. */
+    int admittedCount() {
+        return admitted;
+    }
+
+    /** The pid admitted {@code index}-th, for index below {@link #admittedCount()}. */
+    int admittedPid(int index) {
+        return byArrival == null ? index : byArrival[index];
+    }
+
+    /** Puts the clock and the arrival cursor back to a saved point of the same run. */
+    void restore(int time, int admittedCount) {
+        this.time = time;
+        this.admitted = admittedCount;
+        this.horizon = admittedCount;
+    }
+
+    /** Charges a context switch. Arrivals during the switch are admitted on the next {@link #admitArrivals}. */
+    public void contextSwitch(int cost) {
+        time = later(cost);
+    }
+
+    /** The CPU has nothing to run: skips the idle gap up to the next arrival. */
+    public void idleUntilNextArrival() {
+        int arrivalAt = nextArrivalTime();
+        if (arrivalAt == NO_EVENT) {
+            throw new IllegalStateException("CPU idle at time " + time + " with no pending arrivals");
+        }
+        time = arrivalAt;
+    }
+
+    private int later(int duration) {
+        try {
+            int later = Math.addExact(time, duration);
+            if (later != NO_EVENT) return later;
+        } catch (ArithmeticException e) {
+            // reported below
+        }
+        throw overflow();
+    }
+
+    private ArithmeticException overflow() {
+        return new ArithmeticException("The schedule runs past the int clock at time " + time);
+    }
+}
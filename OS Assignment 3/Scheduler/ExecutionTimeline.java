@@ -0,0 +1,203 @@
+package Scheduler;
+
+import model.ProcessTable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Gantt data of one run: the segments in which a process held the CPU,
+ * stored as (pid, start, end) triples in one growable int array.
+ *
+ * Segments are recorded from the scheduler's dispatch, preemption and completion events.
+ * The execution order by name is derived from them on demand
+ * (see {@link #executionOrder(boolean)}), so schedulers never touch names while running.
+ *
+ * Repeated Round Robin rounds ({@link #onRounds}) are kept as one block of the processes in round
+ * order instead of one triple per slice. Segment numbers count the slices of a block one by one,
+ * and a block's segments are computed when they are read.
+ */
+public class ExecutionTimeline implements ScheduleListener {
+
+    private final ProcessTable table;
+    private int[] segments = new int[48];
+    private int size = 0;   // plain segments, not counting blocks
+
+    // Blocks of repeated rounds, BLOCK ints each, in time order; their pids are in blockPids
+    private static final int FIRST = 0;    // segment number of the block's first slice
+    private static final int AFTER = 1;    // plain segments recorded before the block
+    private static final int WIDTH = 2;    // processes per round
+    private static final int ROUNDS = 3;
+    private static final int START = 4;    // time the first round starts, with its first switch
+    private static final int SWITCH = 5;
+    private static final int SLICE = 6;
+    private static final int PIDS = 7;     // offset of the round order in blockPids
+    private static final int BLOCK = 8;
+
+    private int[] blocks = new int[0];
+    private int blockCount = 0;
+    private int[] blockPids = new int[0];
+    private int blockPidCount = 0;
+    private int blockSegments = 0;   // slices in all blocks
+
+    public ExecutionTimeline(ProcessTable table) {
+        this.table = table;
+    }
+
+    /** Appends a segment, even if the same process ran right before. */
+    public void add(int pid, int start, int end) {
+        if (size == Integer.MAX_VALUE - blockSegments) throw new IllegalStateException("timeline is full");
+        if (3 * size + 3 > segments.length) segments = Arrays.copyOf(segments, segments.length * 2);
+        segments[3 * size] = pid;
+        segments[3 * size + 1] = start;
+        segments[3 * size + 2] = end;
+        size++;
+    }
+
+    /** Moves the end of the last segment, which must not be part of a block. */
+    public void extend(int end) {
+        if (size == 0 || blockCount > 0 && blocks[(blockCount - 1) * BLOCK + AFTER] == size) {
+            throw new IllegalStateException("the last segment is not a plain one");
+        }
+        segments[3 * size - 1] = end;
+    }
+
+    @Override
+    public void onRounds(int time, int[] order, int rounds, int switchCost, int slice) {
+        int slices = Math.multiplyExact(rounds, order.length);
+        if (slices > Integer.MAX_VALUE - size - blockSegments) throw new IllegalStateException("timeline is full");
+
+        if (BLOCK * blockCount + BLOCK > blocks.length) blocks = Arrays.copyOf(blocks, Math.max(BLOCK * 4, blocks.length * 2));
+        if (blockPidCount + order.length > blockPids.length) {
+            blockPids = Arrays.copyOf(blockPids, Math.max(blockPidCount + order.length, blockPids.length * 2));
+        }
+        int b = BLOCK * blockCount++;
+        blocks[b + FIRST] = size + blockSegments;
+        blocks[b + AFTER] = size;
+        blocks[b + WIDTH] = order.length;
+        blocks[b + ROUNDS] = rounds;
+        blocks[b + START] = time;
+        blocks[b + SWITCH] = switchCost;
+        blocks[b + SLICE] = slice;
+        blocks[b + PIDS] = blockPidCount;
+        System.arraycopy(order, 0, blockPids, blockPidCount, order.length);
+        blockPidCount += order.length;
+        blockSegments += slices;
+    }
+
+    @Override
+    public void onDispatch(int pid, int time) {
+        add(pid, time, time);
+    }
+
+    @Override
+    public void onPreemption(int pid, int time) {
+        extend(time);
+    }
+
+    @Override
+    public void onCompletion(int pid, int time) {
+        extend(time);
+    }
+
+    public int size() { return size + blockSegments; }
+
+    /** Approximate heap bytes of the recorded segments and blocks. */
+    public long heapBytes() {
+        return 48 + 16 + 4L * segments.length + 16 + 4L * blocks.length + 16 + 4L * blockPids.length;
+    }
+
+    public int getPid(int segment) {
+        int at = locate(segment);
+        if (at < 0) return segments[3 * (-1 - at)];
+        int slice = segment - blocks[at + FIRST];
+        return blockPids[blocks[at + PIDS] + slice % blocks[at + WIDTH]];
+    }
+
+    public int getStart(int segment) {
+        int at = locate(segment);
+        if (at < 0) return segments[3 * (-1 - at) + 1];
+        int slice = segment - blocks[at + FIRST];
+        return (int) (blocks[at + START] + (long) slice * (blocks[at + SWITCH] + blocks[at + SLICE]) + blocks[at + SWITCH]);
+    }
+
+    public int getEnd(int segment) {
+        int at = locate(segment);
+        if (at < 0) return segments[3 * (-1 - at) + 2];
+        return getStart(segment) + blocks[at + SLICE];
+    }
+
+    // Offset in blocks of the block holding the segment, or -1 - (its index in segments) if it is plain
+    private int locate(int segment) {
+        if (segment < 0 || segment >= size()) throw new IndexOutOfBoundsException("segment " + segment);
+        if (blockCount == 0) return -1 - segment;
+
+        // Last block starting at or before the segment
+        int lo = 0, hi = blockCount - 1, last = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blocks[BLOCK * mid + FIRST] <= segment) {
+                last = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (last < 0) return -1 - segment;
+
+        int b = BLOCK * last;
+        int past = segment - blocks[b + FIRST] - blocks[b + WIDTH] * blocks[b + ROUNDS];
+        return past < 0 ? b : -1 - (blocks[b + AFTER] + past);
+    }
+
+    /**
+     * Process names in dispatch order, one per segment.
+     * With {@code collapseRepeats} consecutive segments of the same name are reported once.
+     */
+    public List<String> executionOrder(boolean collapseRepeats) {
+        return collapseRepeats ? new CollapsedOrder() : new SegmentOrder();
+    }
+
+    private class SegmentOrder extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("index " + index);
+            return table.getName(getPid(index));
+        }
+
+        @Override
+        public int size() {
+            return ExecutionTimeline.this.size();
+        }
+    }
+
+    private class CollapsedOrder extends AbstractList<String> implements RandomAccess {
+        // First segment of every entry; built on first access
+        private int[] firsts;
+
+        @Override
+        public String get(int index) {
+            int[] entries = entries();
+            if (index < 0 || index >= entries.length) throw new IndexOutOfBoundsException("index " + index);
+            return table.getName(getPid(entries[index]));
+        }
+
+        @Override
+        public int size() {
+            return entries().length;
+        }
+
+        private int[] entries() {
+            if (firsts != null) return firsts;
+
+            int[] result = new int[ExecutionTimeline.this.size()];
+            int n = 0;
+            for (int s = 0; s < result.length; s++) {
+                if (n == 0 || table.compareNames(getPid(result[n - 1]), getPid(s)) != 0) result[n++] = s;
+            }
+            firsts = Arrays.copyOf(result, n);
+            return firsts;
+        }
+    }
+}
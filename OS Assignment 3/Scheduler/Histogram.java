@@ -0,0 +1,75 @@
+package Scheduler;
+
+/**
+ * Distribution of non-negative int values in fixed memory, for percentiles over any number of runs.
+ *
+ * Values below 128 are counted exactly. Larger values share a bucket with values that agree in
+ * their top 7 bits, so a reported percentile is at most 1/64 (about 1.6%) above the true value.
+ * All of int's range fits in 1664 buckets, about 13 KB.
+ */
+public class Histogram {
+
+    private static final int EXACT = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int BUCKETS = EXACT + (31 - 7) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total = 0;
+    private long sum = 0;
+    private int min = Integer.MAX_VALUE;
+    private int max = 0;
+
+    /** Negative values are counted as 0. */
+    public void record(int value) {
+        value = Math.max(0, value);
+        counts[bucket(value)]++;
+        total++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long count() { return total; }
+    public int min() { return total == 0 ? 0 : min; }
+    public int max() { return max; }
+
+    public double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Smallest recorded value (up to the bucket precision) that at least {@code percent}% of the
+     * values do not exceed. 0 when nothing was recorded.
+     */
+    public int percentile(double percent) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return Math.min(max, highestValue(b));
+        }
+        return max;
+    }
+
+    // Values 0..127 map to themselves; above, 64 buckets per power of two
+    private static int bucket(int value) {
+        if (value < EXACT) return value;
+        int exponent = 31 - Integer.numberOfLeadingZeros(value);   // 7..30
+        int top = value >>> (exponent - 6);                         // 64..127
+        return EXACT + (exponent - 7) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    private static int highestValue(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int exponent = 7 + (bucket - EXACT) / SUB_BUCKETS;
+        long top = SUB_BUCKETS + (bucket - EXACT) % SUB_BUCKETS;
+        long highest = ((top + 1) << (exponent - 6)) - 1;
+        return (int) Math.min(Integer.MAX_VALUE, highest);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50 %d, p90 %d, p99 %d, max %d", percentile(50), percentile(90), percentile(99), max);
+    }
+}
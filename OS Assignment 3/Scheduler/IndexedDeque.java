@@ -0,0 +1,140 @@
+package Scheduler;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * FIFO queue of process ids (0..capacity-1) backed by an intrusive doubly linked list.
+ *
+ * Besides the usual queue operations it supports O(1) membership tests and
+ * O(1) removal of an arbitrary id, which a LinkedList only offers in O(n).
+ * An id can be in the queue at most once.
+ */
+public class IndexedDeque {
+
+    private static final int NONE = -1;
+
+    private final int[] next;
+    private final int[] prev;
+    private final boolean[] queued;
+    private final boolean ownsLinks;   // false for a queue made from a sibling
+    private int head = NONE;
+    private int tail = NONE;
+    private int size = 0;
+
+    public IndexedDeque(int capacity) {
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.queued = new boolean[capacity];
+        this.ownsLinks = true;
+        Arrays.fill(next, NONE);
+        Arrays.fill(prev, NONE);
+    }
+
+    /**
+     * A queue that shares the links of {@code sibling}, so one id space can be split over many
+     * queues with a single set of links. An id may be in only one of the queues at a time, and
+     * {@link #contains} tells whether an id is in any of them. The links never grow: adding an id
+     * at or above the sibling's capacity throws, as it does for the sibling itself.
+     */
+    public IndexedDeque(IndexedDeque sibling) {
+        this.next = sibling.next;
+        this.prev = sibling.prev;
+        this.queued = sibling.queued;
+        this.ownsLinks = false;
+    }
+
+    /** Approximate heap bytes; shared links are counted by the queue that made them. */
+    public long heapBytes() {
+        return 40 + (ownsLinks ? 16 + 4L * next.length + 16 + 4L * prev.length + 16 + queued.length : 0);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return queued[id];
+    }
+
+    /** Appends {@code id} at the tail. Ignored if it is already queued. */
+    public void addLast(int id) {
+        if (queued[Objects.checkIndex(id, queued.length)]) return;
+        queued[id] = true;
+        prev[id] = tail;
+        next[id] = NONE;
+        if (tail == NONE) head = id; else next[tail] = id;
+        tail = id;
+        size++;
+    }
+
+    /** Puts {@code id} at the head. Ignored if it is already queued. */
+    public void addFirst(int id) {
+        if (queued[Objects.checkIndex(id, queued.length)]) return;
+        queued[id] = true;
+        prev[id] = NONE;
+        next[id] = head;
+        if (head == NONE) tail = id; else prev[head] = id;
+        head = id;
+        size++;
+    }
+
+    /**
+     * Moves every id of {@code sibling}, a queue sharing this queue's links, to the tail
+     * of this queue in O(1), keeping their order. The sibling is left empty.
+     */
+    public void appendAll(IndexedDeque sibling) {
+        if (sibling.next != next) throw new IllegalArgumentException("queues do not share their links");
+        if (sibling == this || sibling.head == NONE) return;
+
+        if (tail == NONE) {
+            head = sibling.head;
+        } else {
+            next[tail] = sibling.head;
+            prev[sibling.head] = tail;
+        }
+        tail = sibling.tail;
+        size += sibling.size;
+
+        sibling.head = NONE;
+        sibling.tail = NONE;
+        sibling.size = 0;
+    }
+
+    /** Removes and returns the head, or -1 if the queue is empty. */
+    public int pollFirst() {
+        if (head == NONE) return NONE;
+        int id = head;
+        remove(id);
+        return id;
+    }
+
+    /** Head of the queue, or -1 if it is empty. */
+    public int peekFirst() {
+        return head;
+    }
+
+    /** Tail of the queue, or -1 if it is empty. */
+    public int peekLast() {
+        return tail;
+    }
+
+    /** Id following {@code id} in queue order, or -1 at the tail. */
+    public int next(int id) {
+        return next[id];
+    }
+
+    public void remove(int id) {
+        if (!queued[id]) return;
+        queued[id] = false;
+        if (prev[id] == NONE) head = next[id]; else next[prev[id]] = next[id];
+        if (next[id] == NONE) tail = prev[id]; else prev[next[id]] = prev[id];
+        prev[id] = NONE;
+        next[id] = NONE;
+        size--;
+    }
+}
@@ -0,0 +1,150 @@
+package Scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over process ids (0..capacity-1) with O(log n) add, poll,
+ * remove and re-positioning of an element whose key changed.
+ *
+ * The heap stores no keys itself: the comparator reads them from wherever the
+ * scheduler keeps its process state, and {@link #update} must be called after
+ * a key of an element in the heap changes.
+ */
+public class IndexedMinHeap {
+
+    public interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    private final IntComparator comparator;
+    private int[] heap;
+    private int[] position;   // position[id] = slot in heap, or -1 when absent
+    private int size = 0;
+    // Set once the index is shared: the heaps hold the same array, so none may replace it
+    private boolean sharedIndex = false;
+    private final boolean ownsIndex;   // false for a heap made from a sibling
+
+    public IndexedMinHeap(int capacity, IntComparator comparator) {
+        this.comparator = comparator;
+        this.heap = new int[Math.max(1, capacity)];
+        this.position = new int[Math.max(1, capacity)];
+        this.ownsIndex = true;
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * A heap that shares the id index of {@code sibling}, so one id space can be split over
+     * many heaps (one per core, say) with a single index. An id may be in only one of the heaps
+     * at a time, and {@link #contains} tells whether an id is in any of them. The shared index
+     * no longer grows: adding an id at or above the sibling's capacity throws, in any of the heaps.
+     */
+    public IndexedMinHeap(IndexedMinHeap sibling, IntComparator comparator) {
+        this.comparator = comparator;
+        this.heap = new int[16];
+        this.position = sibling.position;
+        this.sharedIndex = true;
+        this.ownsIndex = false;
+        sibling.sharedIndex = true;
+    }
+
+    /** Approximate heap bytes; a shared index is counted by the heap that made it. */
+    public long heapBytes() {
+        return 32 + 16 + 4L * heap.length + (ownsIndex ? 16 + 4L * position.length : 0);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id < position.length && position[id] >= 0;
+    }
+
+    /** Smallest element, or -1 if the heap is empty. */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    /** Removes and returns the smallest element, or -1 if the heap is empty. */
+    public int poll() {
+        if (size == 0) return -1;
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    public void add(int id) {
+        if (id >= position.length) {
+            if (sharedIndex) {
+                throw new IndexOutOfBoundsException("id " + id + " is outside the shared index of capacity " + position.length);
+            }
+            int old = position.length;
+            position = Arrays.copyOf(position, Math.max(id + 1, old * 2));
+            Arrays.fill(position, old, position.length, -1);
+        }
+        if (position[id] >= 0) return;
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+
+        heap[size] = id;
+        position[id] = size;
+        siftUp(size++);
+    }
+
+    public void remove(int id) {
+        if (!contains(id)) return;
+        int slot = position[id];
+        int last = heap[--size];
+        position[id] = -1;
+        if (slot == size) return;
+
+        heap[slot] = last;
+        position[last] = slot;
+        update(last);
+    }
+
+    /** Restores heap order after the key of {@code id} changed in either direction. */
+    public void update(int id) {
+        if (!contains(id)) return;
+        int slot = position[id];
+        siftUp(slot);
+        siftDown(position[id]);
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) position[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (comparator.compare(id, heap[parent]) >= 0) break;
+            move(heap[parent], slot);
+            slot = parent;
+        }
+        move(id, slot);
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) break;
+            if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) < 0) child++;
+            if (comparator.compare(heap[child], id) >= 0) break;
+            move(heap[child], slot);
+            slot = child;
+        }
+        move(id, slot);
+    }
+
+    private void move(int id, int slot) {
+        heap[slot] = id;
+        position[id] = slot;
+    }
+}
@@ -0,0 +1,236 @@
+package Scheduler;
+
+import model.Process;
+import model.ProcessTable;
+import java.util.List;
+
+/**
+ * Multi-level feedback queue. Level 0 is the highest.
+ *
+ * A new process starts on level 0. A process that uses up its allotment (the quantum of its
+ * level) drops one level; the lowest level keeps it. A process waiting on a higher level than
+ * the running one preempts it, and the preempted process keeps the rest of its allotment.
+ * Every {@code boostInterval} time units all processes go back to level 0 with a fresh
+ * allotment, so long jobs cannot starve.
+ *
+ * Each level is a FIFO queue and a bitmap has one bit per non-empty level, so dispatch is a
+ * find-first-set and costs the same at any number of processes. A boost splices all queues onto
+ * level 0 and resets levels lazily, when a process is next dispatched, so it is constant time too.
+ * Levels are kept by the run itself; the table's priority columns are left as they are.
+ */
+public class MLFQScheduler implements Scheduler {
+
+    private final int[] quanta;
+    private final int boostInterval;
+
+    /** Three levels with quanta 2, 4 and 8, boosted every 50 time units. */
+    public MLFQScheduler() {
+        this(new int[] { 2, 4, 8 }, 50);
+    }
+
+    /** One level per quantum, highest first; a boost interval of 0 never boosts. */
+    public MLFQScheduler(int[] quanta, int boostInterval) {
+        if (quanta.length < 1 || quanta.length > 64) throw new IllegalArgumentException("MLFQ needs 1 to 64 levels");
+        for (int q : quanta) {
+            if (q < 1) throw new IllegalArgumentException("quanta must be at least 1");
+        }
+        if (boostInterval < 0) throw new IllegalArgumentException("boostInterval must not be negative");
+        this.quanta = quanta.clone();
+        this.boostInterval = boostInterval;
+    }
+
+    @Override
+    public ScheduleResult schedule(List<Process> input, int contextSwitchTime) {
+        return schedule(ProcessTable.from(input), contextSwitchTime);
+    }
+
+    @Override
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime) {
+        ScheduleResult result = new ScheduleResult();
+        ExecutionTimeline timeline = new ExecutionTimeline(table);
+        RunMetrics metrics = new RunMetrics();
+        Run run = new Run(table, quanta, boostInterval, ScheduleListener.of(timeline, metrics));
+        run.execute(contextSwitchTime);
+
+        result.timeline = timeline;
+        result.metrics = metrics;
+        result.heapBytes = table.heapBytes() + run.heapBytes() + timeline.heapBytes();
+        result.offHeapBytes = table.offHeapBytes();
+        result.executionOrder = timeline.executionOrder(false);
+        result.processes = table.asProcessList();
+        result.avgWaitingTime = table.averageWaitingTime();
+        result.avgTurnaroundTime = table.averageTurnaroundTime();
+        return result;
+    }
+
+    @Override
+    public void stream(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        new Run(table, quanta, boostInterval, listener).execute(contextSwitchTime);
+    }
+
+    // All state of one run, so a single scheduler instance can run many schedules at once
+    private static class Run {
+        private final ProcessTable processes;
+        private final int[] quanta;
+        private final int boostInterval;
+        private final ScheduleListener listener;
+        private final EventKernel kernel;
+        private final IndexedDeque[] levels;
+        private long nonEmpty = 0;   // bit l is set when level l has a waiting process
+
+        // Levels are valid only if assigned in the current epoch; a boost starts a new one
+        private final int[] levelOf;
+        private final int[] levelEpoch;
+        private int epoch = 0;
+        private int nextBoost;
+        private int completed = 0;
+        private int running = -1;
+        private int lastRan = -1;
+
+        Run(ProcessTable processes, int[] quanta, int boostInterval, ScheduleListener listener) {
+            this.processes = processes;
+            this.quanta = quanta;
+            this.boostInterval = boostInterval;
+            this.listener = listener;
+            processes.reset();
+
+            kernel = new EventKernel(processes);
+            levelOf = new int[processes.size()];
+            levelEpoch = new int[processes.size()];
+            levels = new IndexedDeque[quanta.length];
+            levels[0] = new IndexedDeque(processes.size());
+            for (int l = 1; l < levels.length; l++) levels[l] = new IndexedDeque(levels[0]);
+            nextBoost = boostInterval > 0 ? boostInterval : EventKernel.NO_EVENT;
+        }
+
+        long heapBytes() {
+            long bytes = kernel.heapBytes() + 16 + 4L * levelOf.length + 16 + 4L * levelEpoch.length;
+            for (IndexedDeque level : levels) bytes += level.heapBytes();
+            return bytes;
+        }
+
+        void execute(int contextSwitchTime) {
+            listener.onStart(processes);
+
+            while (completed < processes.size()) {
+                admitArrivals();
+                boostIfDue();
+
+                // A process waiting on a higher level takes the CPU
+                if (running >= 0 && topLevel() >= 0 && topLevel() < level(running)) {
+                    listener.onPreemption(running, kernel.now());
+                    enqueue(running);
+                    running = -1;
+                }
+
+                if (running < 0) {
+                    int next = dequeue();
+                    if (next < 0) {
+                        kernel.idleUntilNextArrival();
+                        continue;
+                    }
+
+                    if (lastRan >= 0 && next != lastRan) {
+                        listener.onContextSwitch(kernel.now(), contextSwitchTime);
+                        kernel.contextSwitch(contextSwitchTime);
+                        admitArrivals();
+                        boostIfDue();
+                        // Something arrived on a higher level during the switch: it goes first
+                        if (topLevel() >= 0 && topLevel() < level(next)) {
+                            requeueFirst(next);
+                            continue;
+                        }
+                    }
+
+                    running = next;
+                    processes.setStartTime(running, kernel.now());
+                    listener.onDispatch(running, kernel.now());
+                }
+
+                // Runs until it completes, its allotment ends, the next boost or the next arrival
+                int start = kernel.now();
+                int allotment = processes.getRemainingQuantum(running);
+                kernel.advanceToNextEvent(start + processes.getRemainingBurstTime(running), start + allotment, nextBoost);
+
+                int ran = kernel.now() - start;
+                processes.execute(running, ran);
+                processes.setRemainingQuantum(running, allotment - ran);
+                lastRan = running;
+
+                if (processes.isCompleted(running)) {
+                    completed++;
+                    processes.complete(running, kernel.now());
+                    listener.onCompletion(running, kernel.now());
+                    running = -1;
+                } else if (allotment - ran <= 0) {
+                    // Processes arriving right now queue ahead of it, as in RoundRobinScheduler
+                    admitArrivals();
+                    assign(running, Math.min(level(running) + 1, quanta.length - 1));
+                    listener.onPreemption(running, kernel.now());
+                    enqueue(running);
+                    running = -1;
+                }
+            }
+
+            listener.onEnd(kernel.now());
+        }
+
+        // ================= Levels =================
+
+        private void admitArrivals() {
+            kernel.admitArrivalsInArrivalOrder(pid -> {
+                assign(pid, 0);
+                enqueue(pid);
+            });
+        }
+
+        private void assign(int pid, int newLevel) {
+            levelOf[pid] = newLevel;
+            levelEpoch[pid] = epoch;
+            processes.setRemainingQuantum(pid, quanta[newLevel]);
+        }
+
+        // Processes whose level is from before the last boost are on level 0 with a fresh allotment
+        private int level(int pid) {
+            if (levelEpoch[pid] != epoch) assign(pid, 0);
+            return levelOf[pid];
+        }
+
+        private void enqueue(int pid) {
+            int level = level(pid);
+            levels[level].addLast(pid);
+            nonEmpty |= 1L << level;
+        }
+
+        private void requeueFirst(int pid) {
+            int level = level(pid);
+            levels[level].addFirst(pid);
+            nonEmpty |= 1L << level;
+        }
+
+        private int topLevel() {
+            return nonEmpty == 0 ? -1 : Long.numberOfTrailingZeros(nonEmpty);
+        }
+
+        private int dequeue() {
+            int level = topLevel();
+            if (level < 0) return -1;
+            int pid = levels[level].pollFirst();
+            if (levels[level].isEmpty()) nonEmpty &= ~(1L << level);
+            return pid;
+        }
+
+        // Moves every waiting process to level 0, keeping the order of the levels
+        private void boostIfDue() {
+            if (kernel.now() < nextBoost) return;
+            nextBoost = (kernel.now() / boostInterval + 1) * boostInterval;
+            epoch++;
+
+            for (int l = 1; l < levels.length; l++) {
+                if ((nonEmpty & (1L << l)) != 0) levels[0].appendAll(levels[l]);
+            }
+            if (nonEmpty != 0) nonEmpty = 1L;
+            if (running >= 0) assign(running, 0);
+        }
+    }
+}
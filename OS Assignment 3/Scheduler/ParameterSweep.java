@@ -0,0 +1,211 @@
+package Scheduler;
+
+import model.ProcessTable;
+import model.WorkloadReader;
+import model.Workload;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs one workload under every combination of a parameter grid, in parallel.
+ *
+ * The grid points are split recursively over a {@link ForkJoinPool}. The workload itself is
+ * never modified or copied: each worker thread takes one {@link ProcessTable#newRun()} of it,
+ * which shares the input and holds only scheduling state, and reuses it for all points it runs,
+ * since every run resets the table anyway. Only when the grid has AG points that override the
+ * initial quanta does that table get a quantum column of its own. Only averages are collected
+ * (runs are streamed).
+ *
+ * Usage: java Scheduler.ParameterSweep &lt;workload.json | workload.trace&gt;
+ */
+public class ParameterSweep {
+
+    public enum Algorithm { SJF, RR, PRIORITY, AG }
+
+    /** Values to try; each algorithm only varies the parameters it uses. */
+    public static class Grid {
+        public List<Algorithm> algorithms = List.of(Algorithm.values());
+        public int[] contextSwitches = { 0 };
+        public int[] rrQuanta = { 2, 4, 8 };
+        public int[] agingIntervals = { 5 };
+        public int[] agQuanta = { 0 };   // 0 keeps each process's own initial quantum
+    }
+
+    /** One grid point and its result. */
+    public static class Point {
+        public final Algorithm algorithm;
+        public final int contextSwitch;
+        public final int rrQuantum;
+        public final int agingInterval;
+        public final int agQuantum;
+        public double avgWaitingTime;
+        public double avgTurnaroundTime;
+
+        Point(Algorithm algorithm, int contextSwitch, int rrQuantum, int agingInterval, int agQuantum) {
+            this.algorithm = algorithm;
+            this.contextSwitch = contextSwitch;
+            this.rrQuantum = rrQuantum;
+            this.agingInterval = agingInterval;
+            this.agQuantum = agQuantum;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s cs=%-3d rrQ=%-4s aging=%-4s agQ=%-4s avgWait=%10.2f avgTAT=%10.2f",
+                    algorithm, contextSwitch,
+                    algorithm == Algorithm.RR ? rrQuantum : "-",
+                    algorithm == Algorithm.PRIORITY ? agingInterval : "-",
+                    algorithm == Algorithm.AG ? (agQuantum > 0 ? agQuantum : "own") : "-",
+                    avgWaitingTime, avgTurnaroundTime);
+        }
+    }
+
+    public static class Result {
+        public final List<Point> points;
+        public final Point best;   // lowest average waiting time, then turnaround
+
+        Result(List<Point> points) {
+            this.points = points;
+            this.best = points.stream().min(BY_WAITING).orElse(null);
+        }
+
+        public Point best(Algorithm algorithm) {
+            return points.stream().filter(p -> p.algorithm == algorithm).min(BY_WAITING).orElse(null);
+        }
+    }
+
+    private static final Comparator<Point> BY_WAITING = Comparator
+            .comparingDouble((Point p) -> p.avgWaitingTime)
+            .thenComparingDouble(p -> p.avgTurnaroundTime);
+
+    private static final ScheduleListener NO_LISTENER = new ScheduleListener() {};
+
+    private final ProcessTable workload;
+
+    public ParameterSweep(ProcessTable workload) {
+        this.workload = workload;
+    }
+
+    public Result run(Grid grid) {
+        return run(grid, ForkJoinPool.commonPool());
+    }
+
+    public Result run(Grid grid, ForkJoinPool pool) {
+        List<Point> points = points(grid);
+        boolean ownQuanta = points.stream().anyMatch(p -> p.algorithm == Algorithm.AG && p.agQuantum > 0);
+        // One run table per thread that takes part in this run, released as soon as it ends
+        Map<Thread, ProcessTable> tables = new ConcurrentHashMap<>();
+        try {
+            pool.invoke(new Sweep(points, 0, points.size(), ownQuanta, tables));
+        } finally {
+            tables.clear();
+        }
+        return new Result(points);
+    }
+
+    private static List<Point> points(Grid grid) {
+        List<Point> points = new ArrayList<>();
+        for (Algorithm algorithm : grid.algorithms) {
+            switch (algorithm) {
+                case SJF:
+                    for (int cs : grid.contextSwitches) points.add(new Point(algorithm, cs, 0, 0, 0));
+                    break;
+                case RR:
+                    for (int cs : grid.contextSwitches)
+                        for (int q : grid.rrQuanta) points.add(new Point(algorithm, cs, q, 0, 0));
+                    break;
+                case PRIORITY:
+                    for (int cs : grid.contextSwitches)
+                        for (int aging : grid.agingIntervals) points.add(new Point(algorithm, cs, 0, aging, 0));
+                    break;
+                case AG:
+                    // AG has no context-switch cost
+                    for (int q : grid.agQuanta) points.add(new Point(algorithm, 0, 0, 0, q));
+                    break;
+            }
+        }
+        return points;
+    }
+
+    @SuppressWarnings("serial")   // tasks are never serialized
+    private class Sweep extends RecursiveAction {
+        private final List<Point> points;
+        private final int from, to;
+        private final boolean ownQuanta;
+        private final Map<Thread, ProcessTable> tables;
+
+        Sweep(List<Point> points, int from, int to, boolean ownQuanta, Map<Thread, ProcessTable> tables) {
+            this.points = points;
+            this.from = from;
+            this.to = to;
+            this.ownQuanta = ownQuanta;
+            this.tables = tables;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                evaluate(points.get(from), ownQuanta, tables.computeIfAbsent(Thread.currentThread(),
+                        t -> ownQuanta ? workload.newRunWithOwnQuanta() : workload.newRun()));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Sweep(points, from, mid, ownQuanta, tables), new Sweep(points, mid, to, ownQuanta, tables));
+        }
+    }
+
+    // A table with its own quanta may still hold those of the last AG point it ran
+    private void evaluate(Point point, boolean ownQuanta, ProcessTable table) {
+        if (point.algorithm == Algorithm.AG && ownQuanta) {
+            for (int pid = 0; pid < table.size(); pid++) {
+                table.setInitialQuantum(pid, point.agQuantum > 0 ? point.agQuantum : workload.getInitialQuantum(pid));
+            }
+        }
+
+        switch (point.algorithm) {
+            case SJF:      new SJFScheduler().stream(table, point.contextSwitch, NO_LISTENER); break;
+            case RR:       new RoundRobinScheduler(point.rrQuantum).stream(table, point.contextSwitch, NO_LISTENER); break;
+            case PRIORITY: new PriorityScheduler().stream(table, point.contextSwitch, point.agingInterval, NO_LISTENER); break;
+            case AG:       new AG_Scheduler().stream(table, point.contextSwitch, NO_LISTENER); break;
+        }
+
+        point.avgWaitingTime = table.averageWaitingTime();
+        point.avgTurnaroundTime = table.averageTurnaroundTime();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java Scheduler.ParameterSweep <workload.json|workload.trace>");
+            return;
+        }
+        Workload workload = new WorkloadReader(ProcessTable.Storage.HEAP, false).read(new File(args[0]));
+
+        Grid grid = new Grid();
+        grid.contextSwitches = new int[] { workload.contextSwitch };
+        grid.rrQuanta = range(1, 20);
+        grid.agingIntervals = range(1, 20);
+        grid.agQuanta = range(2, 20);
+
+        long start = System.nanoTime();
+        Result result = new ParameterSweep(workload.processes).run(grid);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+
+        for (Point point : result.points) System.out.println(point);
+        System.out.printf("%n%d points in %d ms on %d threads%n", result.points.size(), ms, ForkJoinPool.commonPool().getParallelism());
+        for (Algorithm algorithm : grid.algorithms) System.out.println("Best " + result.best(algorithm));
+        System.out.println("Best overall: " + result.best);
+    }
+
+    private static int[] range(int from, int to) {
+        int[] values = new int[to - from + 1];
+        for (int i = 0; i < values.length; i++) values[i] = from + i;
+        return values;
+    }
+}
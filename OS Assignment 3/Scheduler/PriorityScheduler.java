@@ -1,189 +1,329 @@
 package Scheduler;
 
 import model.Process;
+import model.ProcessTable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 public class PriorityScheduler implements Scheduler {
 
-    private List<Process> processes;
-    private PriorityQueue<Process> readyQueue;
-    private int time = 0;
-    private int completed = 0;
-    private Process current = null;
-    private String lastAddedToOrder = "";
-    private Process lastExecutedProcess = null;
-
     @Override
     public ScheduleResult schedule(List<Process> input, int contextSwitchTime) {
         return schedule(input, contextSwitchTime, 5);
     }
 
+    @Override
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime) {
+        return schedule(table, contextSwitchTime, 5);
+    }
+
     public ScheduleResult schedule(List<Process> input, int contextSwitchTime, int agingInterval) {
+        return schedule(ProcessTable.from(input), contextSwitchTime, agingInterval);
+    }
+
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime, int agingInterval) {
+        return schedule(table, contextSwitchTime, agingInterval, null);
+    }
+
+    /** Schedules as usual, saving a snapshot to {@code checkpoint} every so many steps (if not null). */
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime, int agingInterval, Checkpoint checkpoint) {
+        ExecutionTimeline timeline = new ExecutionTimeline(table);
+        RunMetrics metrics = new RunMetrics();
+        Run run = new Run(table, agingInterval, ScheduleListener.of(timeline, metrics));
+        if (checkpoint != null) run.checkpointTo(checkpoint, contextSwitchTime, timeline, metrics);
+        run.execute(contextSwitchTime);
+        return result(table, timeline, metrics, run);
+    }
+
+    /**
+     * Continues the run saved in {@code checkpoint} on a table of the same workload, to the result
+     * the run would have had uninterrupted. Snapshots keep going to the same checkpoint.
+     */
+    public ScheduleResult resume(ProcessTable table, Checkpoint checkpoint) throws IOException {
+        ExecutionTimeline timeline = new ExecutionTimeline(table);
+        RunMetrics metrics = new RunMetrics();
+        Run run;
+        int contextSwitchTime;
+        try (DataInputStream in = checkpoint.open()) {
+            checkpoint.readHeader(in, "Priority", table);
+            contextSwitchTime = in.readInt();
+            run = new Run(table, in.readInt(), ScheduleListener.of(timeline, metrics));
+            run.checkpointTo(checkpoint, contextSwitchTime, timeline, metrics);
+            run.restore(in);
+        }
+        run.loop(contextSwitchTime);
+        return result(table, timeline, metrics, run);
+    }
+
+    private ScheduleResult result(ProcessTable table, ExecutionTimeline timeline, RunMetrics metrics, Run run) {
         ScheduleResult result = new ScheduleResult();
-        this.processes = Process.copyList(input);
-        result.processes = this.processes;
-
-        // Reset state
-        time = 0;
-        completed = 0;
-        current = null;
-        lastExecutedProcess = null;
-        lastAddedToOrder = "";
-
-        // Initialize processes
-        for (Process p : processes) {
-            p.setRemainingBurstTime(p.getTotalBurstTime());
-            p.setDynamicPriority(p.getInitialPriority());
-            p.setStartTime(-1);
-            p.setLastUpdate(p.getArrivalTime());
+        calculateMetrics(table, result);
+        result.timeline = timeline;
+        result.metrics = metrics;
+        result.heapBytes = table.heapBytes() + run.heapBytes() + timeline.heapBytes();
+        result.offHeapBytes = table.offHeapBytes();
+        result.executionOrder = timeline.executionOrder(true);
+        result.processes = table.asProcessList();
+        return result;
+    }
+
+    @Override
+    public void stream(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        stream(table, contextSwitchTime, 5, listener);
+    }
+
+    public void stream(ProcessTable table, int contextSwitchTime, int agingInterval, ScheduleListener listener) {
+        new Run(table, agingInterval, listener).execute(contextSwitchTime);
+    }
+
+    // All state of one run, so a single scheduler instance can run many schedules at once
+    private static class Run {
+        private final ProcessTable processes;
+        private final ScheduleListener listener;
+        private final int agingInterval;
+        private final EventKernel kernel;
+        private final IndexedMinHeap readyQueue;
+        private final IndexedMinHeap agingQueue;   // waiting processes ordered by their next aging step
+        private int completed = 0;
+        private int current = -1;
+        private int lastExecutedProcess = -1;
+
+        // Set when snapshots are taken
+        private Checkpoint checkpoint;
+        private int contextSwitchTime;
+        private ExecutionTimeline timeline;
+        private RunMetrics metrics;
+
+        Run(ProcessTable processes, int agingInterval, ScheduleListener listener) {
+            this.processes = processes;
+            this.agingInterval = agingInterval;
+            this.listener = listener;
+            processes.reset();
+
+            kernel = new EventKernel(processes);
+
+            // Ready queue: priority → arrival → name
+            readyQueue = new IndexedMinHeap(processes.size(), (a, b) -> compareReady(processes, a, b));
+            agingQueue = new IndexedMinHeap(processes.size(), (a, b) -> compareAgingDue(processes, a, b));
         }
 
-        // Priority Queue: priority → arrival → name
-        readyQueue = new PriorityQueue<>(
-                Comparator.comparingInt(Process::getDynamicPriority)
-                        .thenComparingInt(Process::getArrivalTime)
-                        .thenComparing(Process::getName)
-        );
+        long heapBytes() {
+            return kernel.heapBytes() + readyQueue.heapBytes() + agingQueue.heapBytes();
+        }
 
-        while (completed < processes.size()) {
+        void checkpointTo(Checkpoint checkpoint, int contextSwitchTime, ExecutionTimeline timeline, RunMetrics metrics) {
+            checkpoint.begin();
+            this.checkpoint = checkpoint;
+            this.contextSwitchTime = contextSwitchTime;
+            this.timeline = timeline;
+            this.metrics = metrics;
+        }
 
-            addArrivals();
-            applyAging(agingInterval);
-
-            // Preemption check
-            if (current != null && !readyQueue.isEmpty()) {
-                Process best = readyQueue.peek();
-                if (shouldPreempt(best, current)) {
-                    current.setLastUpdate(time);
-                    readyQueue.add(current);
-                    current = null;
-                }
-            }
+        void execute(int contextSwitchTime) {
+            listener.onStart(processes);
+            loop(contextSwitchTime);
+        }
 
-            // Select process
-            if (current == null) {
-                if (readyQueue.isEmpty()) {
-                    time++;
-                    continue;
-                }
+        void loop(int contextSwitchTime) {
+            while (completed < processes.size()) {
+                if (checkpoint != null && checkpoint.due()) checkpoint.save(this::save);
 
-                while (true) {
-                    Process candidate = readyQueue.poll();
+                addArrivals();
+                applyAging(processes, readyQueue, agingQueue, agingInterval, kernel.now(), listener);
 
-                    if (lastExecutedProcess != null && candidate != lastExecutedProcess) {
-                        performContextSwitch(contextSwitchTime); // ❌ NO AGING HERE
+                // Preemption check
+                if (current >= 0 && !readyQueue.isEmpty()) {
+                    int best = readyQueue.peek();
+                    if (shouldPreempt(processes, best, current)) {
+                        listener.onPreemption(current, kernel.now());
+                        enqueue(current);
+                        current = -1;
                     }
+                }
 
-                    if (!readyQueue.isEmpty() && shouldPreempt(readyQueue.peek(), candidate)) {
-                        candidate.setLastUpdate(time);
-                        readyQueue.add(candidate);
+                // Select process
+                if (current < 0) {
+                    if (readyQueue.isEmpty()) {
+                        kernel.idleUntilNextArrival();
                         continue;
                     }
 
-                    current = candidate;
-                    if (current.getStartTime() == -1) {
-                        current.setStartTime(time);
+                    while (true) {
+                        int candidate = dequeue();
+
+                        if (lastExecutedProcess >= 0 && candidate != lastExecutedProcess) {
+                            performContextSwitch(contextSwitchTime); // ❌ NO AGING HERE
+                        }
+
+                        if (!readyQueue.isEmpty() && shouldPreempt(processes, readyQueue.peek(), candidate)) {
+                            enqueue(candidate);
+                            continue;
+                        }
+
+                        current = candidate;
+                        processes.setStartTime(current, kernel.now());
+                        listener.onDispatch(current, kernel.now());
+                        break;
                     }
-                    break;
                 }
-            }
 
-            // Execute
-            if (current != null) {
-                recordExecution(current, result);
-
-                current.execute(1);
-                time++;
-                lastExecutedProcess = current;
-
-                if (current.isCompleted()) {
-                    completed++;
-                    current.setCompletionTime(time);
-                    current.setTurnaroundTime(time - current.getArrivalTime());
-                    current.setWaitingTime(
-                            current.getTurnaroundTime() - current.getTotalBurstTime()
-                    );
-                    current = null;
+                // Execute
+                if (current >= 0) {
+                    // Nothing can change before the next arrival, aging step or completion.
+                    // At least one unit always runs: aging is not applied during a context switch.
+                    int start = kernel.now();
+                    int agingAt = Math.max(start + 1, nextAgingStep(processes, agingQueue, agingInterval));
+                    kernel.advanceToNextEvent(start + processes.getRemainingBurstTime(current), EventKernel.NO_EVENT, agingAt);
+
+                    processes.execute(current, kernel.now() - start);
+                    lastExecutedProcess = current;
+
+                    if (processes.isCompleted(current)) {
+                        completed++;
+                        processes.complete(current, kernel.now());
+                        listener.onCompletion(current, kernel.now());
+                        current = -1;
+                    }
                 }
             }
-        }
 
-        calculateMetrics(result);
-        return result;
-    }
+            listener.onEnd(kernel.now());
+        }
 
-    // ================= Helpers =================
+        // ================= Checkpoints =================
+
+        // Heaps are saved as membership of the unfinished processes: their order follows from the restored rows
+        private void save(DataOutputStream out) throws IOException {
+            checkpoint.writeHeader(out, "Priority", processes);
+            out.writeInt(contextSwitchTime);
+            out.writeInt(agingInterval);
+            checkpoint.writeState(out, processes, kernel, timeline, metrics);
+
+            out.writeInt(completed);
+            out.writeInt(current);
+            out.writeInt(lastExecutedProcess);
+            for (int i = 0; i < kernel.admittedCount(); i++) {
+                int pid = kernel.admittedPid(i);
+                if (processes.isCompleted(pid)) continue;
+                out.writeByte((readyQueue.contains(pid) ? 1 : 0) | (agingQueue.contains(pid) ? 2 : 0));
+            }
+        }
 
-    private void addArrivals() {
-        for (Process p : processes) {
-            if (p.getArrivalTime() == time) {
-                p.setLastUpdate(time);
-                readyQueue.add(p);
+        // Reads the rest of a snapshot whose header and parameters were read by the caller
+        private void restore(DataInputStream in) throws IOException {
+            checkpoint.readState(in, processes, kernel, timeline, metrics);
+
+            completed = in.readInt();
+            current = in.readInt();
+            lastExecutedProcess = in.readInt();
+            for (int i = 0; i < kernel.admittedCount(); i++) {
+                int pid = kernel.admittedPid(i);
+                if (processes.isCompleted(pid)) continue;
+                int queues = in.readByte();
+                if ((queues & 1) != 0) readyQueue.add(pid);
+                if ((queues & 2) != 0) agingQueue.add(pid);
             }
         }
-    }
 
-    // FIXED AGING
-    private void applyAging(int agingInterval) {
-        if (agingInterval <= 0) return;
+        // ================= Helpers =================
 
-        boolean queueChanged = false;
+        private void addArrivals() {
+            kernel.admitArrivals(pid -> {
+                processes.setLastUpdate(pid, processes.getArrivalTime(pid));
+                readyQueue.add(pid);
+                scheduleAging(processes, agingQueue, agingInterval, pid);
+            });
+        }
 
-        for (Process p : readyQueue) {
-            int waited = time - p.getLastUpdate();
-            int agingSteps = waited / agingInterval;
+        // Puts a process back into the ready queue; its waiting time starts now
+        private void enqueue(int id) {
+            processes.setLastUpdate(id, kernel.now());
+            readyQueue.add(id);
+            scheduleAging(processes, agingQueue, agingInterval, id);
+        }
 
-            if (agingSteps > 0) {
-                p.setDynamicPriority(Math.max(1,
-                        p.getDynamicPriority() - agingSteps));
-                p.setLastUpdate(time);
-                queueChanged = true;
-            }
+        private int dequeue() {
+            int id = readyQueue.poll();
+            agingQueue.remove(id);
+            return id;
         }
 
-        if (queueChanged) rebuildQueue();
+        // ✅ FIXED: NO AGING DURING CS
+        private void performContextSwitch(int csTime) {
+            listener.onContextSwitch(kernel.now(), csTime);
+            kernel.contextSwitch(csTime);
+            addArrivals();
+        }
     }
 
-    // ✅ FIXED: NO AGING DURING CS
-    private void performContextSwitch(int csTime) {
-        for (int i = 0; i < csTime; i++) {
-            time++;
-            addArrivals();
+    // ================= Rules shared with SmpScheduler =================
+    // Each core of an SMP run applies them to its own ready and aging queues.
+
+    // LAZY AGING: a waiting process ages by one level per full agingInterval since its last update.
+    // Only processes whose step is due are touched, and each is re-positioned in the ready queue.
+    static void applyAging(ProcessTable processes, IndexedMinHeap readyQueue, IndexedMinHeap agingQueue,
+                           int agingInterval, int now, ScheduleListener listener) {
+        while (!agingQueue.isEmpty()) {
+            int id = agingQueue.peek();
+            int waited = now - processes.getLastUpdate(id);
+            int agingSteps = waited / agingInterval;
+            if (agingSteps <= 0) break;
+
+            agingQueue.poll();
+            processes.setDynamicPriority(id, Math.max(1,
+                    processes.getDynamicPriority(id) - agingSteps));
+            processes.setLastUpdate(id, now);
+            readyQueue.update(id);
+            scheduleAging(processes, agingQueue, agingInterval, id);
+            listener.onAging(id, processes.getDynamicPriority(id), now);
         }
     }
 
-    private boolean shouldPreempt(Process best, Process running) {
-        if (best.getDynamicPriority() < running.getDynamicPriority()) return true;
+    // Aging moves a priority to 1: higher ones step down, 0 and below are raised to 1 at their first
+    // step. Processes already at priority 1 cannot change any further, so they are not tracked.
+    static void scheduleAging(ProcessTable processes, IndexedMinHeap agingQueue, int agingInterval, int id) {
+        if (agingInterval > 0 && processes.getDynamicPriority(id) != 1) {
+            agingQueue.add(id);
+        }
+    }
+
+    // First time a waiting process is due for its next aging step
+    static int nextAgingStep(ProcessTable processes, IndexedMinHeap agingQueue, int agingInterval) {
+        if (agingQueue.isEmpty()) return EventKernel.NO_EVENT;
+        return processes.getLastUpdate(agingQueue.peek()) + agingInterval;
+    }
 
-        if (best.getDynamicPriority() == running.getDynamicPriority()) {
-            if (best.getArrivalTime() < running.getArrivalTime()) return true;
-            if (best.getArrivalTime() == running.getArrivalTime()) {
-                return best.getName().compareTo(running.getName()) < 0;
+    static boolean shouldPreempt(ProcessTable processes, int best, int running) {
+        if (processes.getDynamicPriority(best) < processes.getDynamicPriority(running)) return true;
+
+        if (processes.getDynamicPriority(best) == processes.getDynamicPriority(running)) {
+            if (processes.getArrivalTime(best) < processes.getArrivalTime(running)) return true;
+            if (processes.getArrivalTime(best) == processes.getArrivalTime(running)) {
+                return processes.compareNames(best, running) < 0;
             }
         }
         return false;
     }
 
-    private void rebuildQueue() {
-        List<Process> temp = new ArrayList<>(readyQueue);
-        readyQueue.clear();
-        readyQueue.addAll(temp);
+    static int compareReady(ProcessTable processes, int a, int b) {
+        int c = Integer.compare(processes.getDynamicPriority(a), processes.getDynamicPriority(b));
+        if (c != 0) return c;
+        c = Integer.compare(processes.getArrivalTime(a), processes.getArrivalTime(b));
+        if (c != 0) return c;
+        c = processes.compareNames(a, b);
+        if (c != 0) return c;
+        return Integer.compare(a, b);
     }
 
-    private void recordExecution(Process p, ScheduleResult result) {
-        if (!p.getName().equals(lastAddedToOrder)) {
-            result.executionOrder.add(p.getName());
-            lastAddedToOrder = p.getName();
-        }
+    static int compareAgingDue(ProcessTable processes, int a, int b) {
+        int c = Integer.compare(processes.getLastUpdate(a), processes.getLastUpdate(b));
+        return c != 0 ? c : Integer.compare(a, b);
     }
 
-    private void calculateMetrics(ScheduleResult result) {
-        double totalWait = 0, totalTurn = 0;
-        for (Process p : processes) {
-            totalWait += p.getWaitingTime();
-            totalTurn += p.getTurnaroundTime();
-        }
-        result.avgWaitingTime = totalWait / processes.size();
-        result.avgTurnaroundTime = totalTurn / processes.size();
+    private void calculateMetrics(ProcessTable processes, ScheduleResult result) {
+        result.avgWaitingTime = processes.averageWaitingTime();
+        result.avgTurnaroundTime = processes.averageTurnaroundTime();
     }
 }
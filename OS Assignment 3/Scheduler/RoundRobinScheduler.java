@@ -1,7 +1,9 @@
 package Scheduler;
 
 import model.Process;
+import model.ProcessTable;
 import java.util.*;
+import java.util.function.IntConsumer;
 
 public class RoundRobinScheduler implements Scheduler {
 
@@ -13,119 +15,155 @@ public class RoundRobinScheduler implements Scheduler {
 
     @Override
     public ScheduleResult schedule(List<Process> processes, int contextSwitchTime) {
+        return schedule(ProcessTable.from(processes), contextSwitchTime);
+    }
+
+    // Arrivals are queued in (arrival, pid) order, so the table does not need to be sorted
+    @Override
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime) {
         ScheduleResult report = new ScheduleResult();
-        report.processes = processes;
+        ExecutionTimeline timeline = new ExecutionTimeline(table);
+        RunMetrics metrics = new RunMetrics();
+        long structures = run(table, contextSwitchTime, ScheduleListener.of(timeline, metrics));
+
+        report.timeline = timeline;
+        report.metrics = metrics;
+        report.heapBytes = table.heapBytes() + structures + timeline.heapBytes();
+        report.offHeapBytes = table.offHeapBytes();
+        report.executionOrder = timeline.executionOrder(false);
+        calculateMetrics(table, report);
+        report.processes = table.asProcessList();
 
-        // Sort processes by arrival time to ensure correct initial order
-        processes.sort(Comparator.comparingInt(Process::getArrivalTime));
+        return report;
+    }
 
-        // Reset process state for the simulation
-        for (Process p : processes) {
-            p.setRemainingBurstTime(p.getTotalBurstTime());
-            p.setWaitingTime(0);
-            p.setTurnaroundTime(0);
-            p.setCompletionTime(0);
-        }
+    @Override
+    public void stream(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        run(table, contextSwitchTime, listener);
+    }
+
+    // Returns the heap bytes of the run's own structures, for the memory report
+    private long run(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        table.reset();
+        listener.onStart(table);
 
-        Queue<Process> readyQueue = new LinkedList<>();
-        List<String> executionOrder = new ArrayList<>();
+        IndexedDeque readyQueue = new IndexedDeque(table.size());
+        IntConsumer admit = readyQueue::addLast;
 
-        int currentTime = 0;
+        EventKernel kernel = new EventKernel(table);
         int completedProcesses = 0;
-        int n = processes.size();
-        int processIndex = 0;
-        Process lastRanProcess = null;
+        int n = table.size();
+        int lastRanProcess = -1;
+        int slicesUntilRoundCheck = 0;
 
         while (completedProcesses < n) {
 
             // 1. Check for new arrivals at the current time
-            while (processIndex < n && processes.get(processIndex).getArrivalTime() <= currentTime) {
-                readyQueue.add(processes.get(processIndex));
-                processIndex++;
-            }
+            kernel.admitArrivalsInArrivalOrder(admit);
 
             // 2. If queue is empty, jump time to the next process arrival
             if (readyQueue.isEmpty()) {
-                if (processIndex < n) {
-                    currentTime = processes.get(processIndex).getArrivalTime();
-                    // Add the process(es) that just arrived
-                    while (processIndex < n && processes.get(processIndex).getArrivalTime() <= currentTime) {
-                        readyQueue.add(processes.get(processIndex));
-                        processIndex++;
-                    }
-                }
+                kernel.idleUntilNextArrival();
                 continue;
             }
 
-            Process currentProcess = readyQueue.poll();
-
-            // 3. Handle Context Switching
-            // We loop through the context switch time to catch any processes arriving DURING the switch
-            if (lastRanProcess != null && currentProcess != lastRanProcess) {
-                for (int i = 0; i < contextSwitchTime; i++) {
-                    currentTime++;
-                    while (processIndex < n && processes.get(processIndex).getArrivalTime() <= currentTime) {
-                        readyQueue.add(processes.get(processIndex));
-                        processIndex++;
-                    }
+            // Steady state: once nothing else can arrive, skip whole rounds at once.
+            // Checked once per round, since a round that fails the check has a completion in it.
+            if (--slicesUntilRoundCheck <= 0 && !kernel.hasPendingArrivals() && lastRanProcess >= 0) {
+                if (fastForwardRounds(table, readyQueue, kernel, listener, contextSwitchTime)) {
+                    lastRanProcess = readyQueue.peekLast();
                 }
+                slicesUntilRoundCheck = readyQueue.size();
             }
 
-            // 4. Execute the Process
-            executionOrder.add(currentProcess.getName());
+            int currentProcess = readyQueue.pollFirst();
 
-            int timeSlice = Math.min(this.quantum, currentProcess.getRemainingBurstTime());
+            // 3. Handle Context Switching
+            // Processes arriving DURING the switch are queued ahead of the ones that follow
+            if (lastRanProcess >= 0 && currentProcess != lastRanProcess) {
+                listener.onContextSwitch(kernel.now(), contextSwitchTime);
+                kernel.contextSwitch(contextSwitchTime);
+                kernel.admitArrivalsInArrivalOrder(admit);
+            }
 
-            for (int t = 0; t < timeSlice; t++) {
-                currentTime++;
-                currentProcess.setRemainingBurstTime(currentProcess.getRemainingBurstTime() - 1);
+            // 4. Execute the Process
+            int timeSlice = Math.min(this.quantum, table.getRemainingBurstTime(currentProcess));
+            table.setStartTime(currentProcess, kernel.now());
+            listener.onDispatch(currentProcess, kernel.now());
 
-                // Check for arrivals during execution
-                while (processIndex < n && processes.get(processIndex).getArrivalTime() <= currentTime) {
-                    readyQueue.add(processes.get(processIndex));
-                    processIndex++;
-                }
-            }
+            // Arrivals during the slice are queued before the current process is re-queued
+            kernel.advanceBy(timeSlice);
+            table.execute(currentProcess, timeSlice);
+            kernel.admitArrivalsInArrivalOrder(admit);
 
             // 5. Completion or Re-queue
-            if (currentProcess.getRemainingBurstTime() > 0) {
-                readyQueue.add(currentProcess);
+            if (table.getRemainingBurstTime(currentProcess) > 0) {
+                listener.onPreemption(currentProcess, kernel.now());
+                readyQueue.addLast(currentProcess);
             } else {
                 completedProcesses++;
-                currentProcess.setCompletionTime(currentTime);
+                table.complete(currentProcess, kernel.now());
+                listener.onCompletion(currentProcess, kernel.now());
             }
 
             lastRanProcess = currentProcess;
         }
 
-        report.executionOrder = executionOrder;
-        calculateMetrics(report);
+        listener.onEnd(kernel.now());
+        return kernel.heapBytes() + readyQueue.heapBytes();
+    }
 
-        return report;
+    /**
+     * Runs every full round in which no process completes, in closed form.
+     * With k >= 2 processes queued each dispatch is a context switch followed by a full quantum,
+     * so k rounds advance the clock by k * size * (contextSwitch + quantum) and leave the queue order unchanged.
+     * The listener gets them as one {@link ScheduleListener#onRounds} event, so this costs O(size) for any k.
+     * Returns false if the next round already completes a process.
+     */
+    private boolean fastForwardRounds(ProcessTable table, IndexedDeque readyQueue, EventKernel kernel, ScheduleListener listener, int contextSwitchTime) {
+        if (readyQueue.size() < 2) return false;
+
+        int rounds = Integer.MAX_VALUE;
+        for (int pid = readyQueue.peekFirst(); pid >= 0; pid = readyQueue.next(pid)) {
+            rounds = Math.min(rounds, (table.getRemainingBurstTime(pid) - 1) / quantum);
+        }
+        if (rounds <= 0) return false;
+
+        // A process that has not run yet starts in its slot of the first round
+        int[] order = new int[readyQueue.size()];
+        int i = 0;
+        for (int pid = readyQueue.peekFirst(); pid >= 0; pid = readyQueue.next(pid)) {
+            table.setStartTime(pid, kernel.now() + i * (contextSwitchTime + quantum) + contextSwitchTime);
+            table.execute(pid, rounds * quantum);
+            order[i++] = pid;
+        }
+        listener.onRounds(kernel.now(), order, rounds, contextSwitchTime, quantum);
+        kernel.advanceBy(Math.toIntExact((long) rounds * order.length * (contextSwitchTime + quantum)));
+        return true;
     }
 
-    private void calculateMetrics(ScheduleResult result) {
+    private void calculateMetrics(ProcessTable table, ScheduleResult result) {
         double totalWaitingTime = 0;
         double totalTurnaroundTime = 0;
 
-        for (Process p : result.processes) {
-            int turnAround = p.getCompletionTime() - p.getArrivalTime();
-            p.setTurnaroundTime(turnAround);
+        for (int pid = 0; pid < table.size(); pid++) {
+            int turnAround = table.getCompletionTime(pid) - table.getArrivalTime(pid);
+            table.setTurnaroundTime(pid, turnAround);
 
-            int waiting = turnAround - p.getTotalBurstTime();
+            int waiting = turnAround - table.getTotalBurstTime(pid);
             if (waiting < 0) waiting = 0;
-            p.setWaitingTime(waiting);
+            table.setWaitingTime(pid, waiting);
 
             totalTurnaroundTime += turnAround;
             totalWaitingTime += waiting;
         }
 
-        if (!result.processes.isEmpty()) {
-            result.avgTurnaroundTime = totalTurnaroundTime / result.processes.size();
-            result.avgWaitingTime = totalWaitingTime / result.processes.size();
+        if (table.size() > 0) {
+            result.avgTurnaroundTime = totalTurnaroundTime / table.size();
+            result.avgWaitingTime = totalWaitingTime / table.size();
         } else {
             result.avgTurnaroundTime = 0;
             result.avgWaitingTime = 0;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package Scheduler;
+
+import model.ProcessTable;
+
+/**
+ * Whole-run metrics collected from the events of a run: context switches and their cost,
+ * CPU utilization, throughput, and the distribution of waiting, turnaround and response time.
+ *
+ * Response time is the time from arrival to the first dispatch. Memory does not grow with the
+ * number of processes or events: the distributions are kept in {@link Histogram}s.
+ */
+public class RunMetrics implements ScheduleListener {
+
+    private final int cores;
+    private ProcessTable processes;
+
+    private long contextSwitches;
+    private long contextSwitchTime;
+    private long completions;
+    private long busyTime;
+    private int firstArrival;
+    private int endTime;
+
+    private Histogram waiting;
+    private Histogram turnaround;
+    private Histogram response;
+
+    public RunMetrics() {
+        this(1);
+    }
+
+    /** For runs on several cores; utilization is then relative to all of them. */
+    public RunMetrics(int cores) {
+        this.cores = cores;
+    }
+
+    @Override
+    public void onStart(ProcessTable processes) {
+        this.processes = processes;
+        contextSwitches = contextSwitchTime = completions = busyTime = 0;
+        firstArrival = Integer.MAX_VALUE;
+        endTime = 0;
+        waiting = new Histogram();
+        turnaround = new Histogram();
+        response = new Histogram();
+    }
+
+    @Override
+    public void onContextSwitch(int time, int cost) {
+        contextSwitches++;
+        contextSwitchTime += cost;
+    }
+
+    @Override
+    public void onRounds(int time, int[] order, int rounds, int switchCost, int slice) {
+        long switches = (long) rounds * order.length;
+        contextSwitches += switches;
+        contextSwitchTime += switches * switchCost;
+    }
+
+    // A completed process has used the CPU for exactly its burst
+    @Override
+    public void onCompletion(int pid, int time) {
+        int arrival = processes.getArrivalTime(pid);
+        completions++;
+        busyTime += processes.getTotalBurstTime(pid);
+        firstArrival = Math.min(firstArrival, arrival);
+
+        waiting.record(processes.getWaitingTime(pid));
+        turnaround.record(processes.getTurnaroundTime(pid));
+        response.record(processes.getStartTime(pid) - arrival);
+    }
+
+    @Override
+    public void onEnd(int time) { endTime = time; }
+
+    /** Sets the switch counters, e.g. to continue the metrics of a run resumed from a checkpoint. */
+    void restoreContextSwitches(long count, long time) {
+        contextSwitches = count;
+        contextSwitchTime = time;
+    }
+
+    public long getContextSwitches() { return contextSwitches; }
+    public long getContextSwitchTime() { return contextSwitchTime; }
+    public long getCompletions() { return completions; }
+    public long getBusyTime() { return busyTime; }
+    public Histogram getWaitingTimes() { return waiting; }
+    public Histogram getTurnaroundTimes() { return turnaround; }
+    public Histogram getResponseTimes() { return response; }
+
+    /** Time from the first arrival to the last completion. */
+    public long getSpan() {
+        return completions == 0 ? 0 : endTime - firstArrival;
+    }
+
+    /** Share of the span the CPU (all cores together) spent running processes. */
+    public double utilization() {
+        return getSpan() == 0 ? 0 : (double) busyTime / ((long) cores * getSpan());
+    }
+
+    /** Completed processes per time unit over the span. */
+    public double throughput() {
+        return getSpan() == 0 ? 0 : (double) completions / getSpan();
+    }
+
+    public double averageResponseTime() {
+        return response.mean();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("context switches %d (%d time units), utilization %.1f%%, throughput %.4f/unit, avg response %.2f%n"
+                        + "  waiting: %s%n  turnaround: %s%n  response: %s",
+                contextSwitches, contextSwitchTime, 100 * utilization(), throughput(), averageResponseTime(),
+                waiting, turnaround, response);
+    }
+}
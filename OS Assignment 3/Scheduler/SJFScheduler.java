@@ -1,124 +1,149 @@
 package Scheduler;
 
 import model.Process;
+import model.ProcessTable;
 import java.util.*;
 
 public class SJFScheduler implements Scheduler {
 
     @Override
     public ScheduleResult schedule(List<Process> input, int contextSwitchTime) {
+        return schedule(ProcessTable.from(input), contextSwitchTime);
+    }
+
+    @Override
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime) {
         ScheduleResult result = new ScheduleResult();
-        List<Process> processes = Process.copyList(input);
-        result.processes = processes;
-
-        for (Process p : processes) {
-            p.setRemainingBurstTime(p.getTotalBurstTime());
-            p.setWaitingTime(0);
-            p.setTurnaroundTime(0);
-            p.setCompletionTime(0);
-            p.setStartTime(-1);
-        }
+        ExecutionTimeline timeline = new ExecutionTimeline(table);
+        RunMetrics metrics = new RunMetrics();
+        long structures = run(table, contextSwitchTime, ScheduleListener.of(timeline, metrics));
+
+        calculateMetrics(table, result);
+        result.timeline = timeline;
+        result.metrics = metrics;
+        result.heapBytes = table.heapBytes() + structures + timeline.heapBytes();
+        result.offHeapBytes = table.offHeapBytes();
+        result.executionOrder = timeline.executionOrder(true);
+        result.processes = table.asProcessList();
+        return result;
+    }
+
+    @Override
+    public void stream(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        run(table, contextSwitchTime, listener);
+    }
+
+    // Returns the heap bytes of the run's own structures, for the memory report
+    private long run(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        table.reset();
+        listener.onStart(table);
 
-        int currentTime = 0;
+        EventKernel kernel = new EventKernel(table);
         int completed = 0;
-        int n = processes.size();
-        Process lastRanProcess = null;
+        int n = table.size();
+        int lastRanProcess = -1;
+
+        // Ready processes other than the running one, ordered by remaining → arrival → name.
+        // The running process stays outside the heap because its key changes while it runs.
+        IndexedMinHeap ready = new IndexedMinHeap(n, (a, b) -> compareReady(table, a, b));
+        int running = -1;
 
         while (completed < n) {
-            Process current = pickShortestRemaining(processes, currentTime, lastRanProcess);
+            kernel.admitArrivals(pid -> {
+                if (!table.isCompleted(pid)) ready.add(pid);
+            });
+
+            int current = pickShortestRemaining(table, ready, running);
 
-            if (current == null) {
-                currentTime++;
+            if (current < 0) {
+                kernel.idleUntilNextArrival();
                 continue;
             }
 
-            if (lastRanProcess != null && current != lastRanProcess) {
-                for (int i = 0; i < contextSwitchTime; i++) {
-                    currentTime++;
-                }
-                current = pickShortestRemaining(processes, currentTime, lastRanProcess);
-                if (current == null) continue;
+            boolean switched = false;
+            if (lastRanProcess >= 0 && current != lastRanProcess) {
+                if (!table.isCompleted(lastRanProcess)) listener.onPreemption(lastRanProcess, kernel.now());
+                listener.onContextSwitch(kernel.now(), contextSwitchTime);
+                kernel.contextSwitch(contextSwitchTime);
+                kernel.admitArrivals(pid -> {
+                    if (!table.isCompleted(pid)) ready.add(pid);
+                });
+                current = pickShortestRemaining(table, ready, running);
+                switched = true;
             }
 
-            if (!current.hasStarted()) {
-                current.setStartTime(currentTime);
+            if (current != running) {
+                if (running >= 0) ready.add(running);
+                ready.remove(current);
+                running = current;
             }
 
-            if (result.executionOrder.isEmpty() ||
-                !result.executionOrder.get(result.executionOrder.size() - 1).equals(current.getName())) {
-                result.executionOrder.add(current.getName());
-            }            
-            current.execute(1);
-            currentTime++;
+            table.setStartTime(current, kernel.now());
+            if (switched || current != lastRanProcess) listener.onDispatch(current, kernel.now());
+
+            // The running process only gets shorter, so nothing can preempt it before
+            // it completes or a new process arrives.
+            int start = kernel.now();
+            kernel.advanceToNextEvent(start + table.getRemainingBurstTime(current), EventKernel.NO_EVENT, EventKernel.NO_EVENT);
+            table.execute(current, kernel.now() - start);
 
-            if (current.isCompleted()) {
+            if (table.isCompleted(current)) {
                 completed++;
-                current.setCompletionTime(currentTime);
+                table.complete(current, kernel.now());
+                listener.onCompletion(current, kernel.now());
+                running = -1;
             }
 
             lastRanProcess = current;
         }
 
-        calculateMetrics(result);
-        return result;
+        listener.onEnd(kernel.now());
+        return kernel.heapBytes() + ready.heapBytes();
     }
 
-    private Process pickShortestRemaining(List<Process> processes, int time, Process lastRanProcess) {
-        Process shortest = null;
+    private int pickShortestRemaining(ProcessTable table, IndexedMinHeap ready, int running) {
+        int shortest = ready.peek();
+        if (running < 0) return shortest;
+        if (shortest < 0) return running;
 
-        for (Process p : processes) {
-            if (p.getArrivalTime() > time || p.getRemainingBurstTime() <= 0) continue;
+        return preempts(table, shortest, running) ? shortest : running;
+    }
 
-            if (shortest == null) {
-                shortest = p;
-                continue;
-            }
+    // The running process keeps the CPU on a tie in remaining time.
+    // Shared with SmpScheduler, as is the ready order below.
+    static boolean preempts(ProcessTable table, int candidate, int running) {
+        return table.getRemainingBurstTime(candidate) < table.getRemainingBurstTime(running);
+    }
 
-            if (p.getRemainingBurstTime() < shortest.getRemainingBurstTime()) {
-                shortest = p;
-            } else if (p.getRemainingBurstTime() == shortest.getRemainingBurstTime()) {
-                // Prefer continuing the current running process 
-                if (lastRanProcess != null) {
-                    if (p == lastRanProcess && shortest != lastRanProcess) {
-                        shortest = p;
-                        continue;
-                    }
-                    if (shortest == lastRanProcess && p != lastRanProcess) {
-                        continue;
-                    }
-                }
-
-                if (p.getArrivalTime() < shortest.getArrivalTime()) {
-                    shortest = p;
-                } else if (p.getArrivalTime() == shortest.getArrivalTime()) {
-                    if (p.getName().compareTo(shortest.getName()) < 0) {
-                        shortest = p;
-                    }
-                }
-            }
-        }
-        return shortest;
+    static int compareReady(ProcessTable table, int a, int b) {
+        int c = Integer.compare(table.getRemainingBurstTime(a), table.getRemainingBurstTime(b));
+        if (c != 0) return c;
+        c = Integer.compare(table.getArrivalTime(a), table.getArrivalTime(b));
+        if (c != 0) return c;
+        c = table.compareNames(a, b);
+        if (c != 0) return c;
+        return Integer.compare(a, b);
     }
 
 
-    private void calculateMetrics(ScheduleResult result) {
+    private void calculateMetrics(ProcessTable table, ScheduleResult result) {
         double sumwaiting = 0;
         double sumturn = 0;
 
-        for (Process p : result.processes) {
-            int turnAround = p.getCompletionTime() - p.getArrivalTime();
-            p.setTurnaroundTime(turnAround);
+        for (int pid = 0; pid < table.size(); pid++) {
+            int turnAround = table.getCompletionTime(pid) - table.getArrivalTime(pid);
+            table.setTurnaroundTime(pid, turnAround);
 
-            int waiting = turnAround - p.getTotalBurstTime();
+            int waiting = turnAround - table.getTotalBurstTime(pid);
             if (waiting < 0) waiting = 0;
-            p.setWaitingTime(waiting);
+            table.setWaitingTime(pid, waiting);
 
             sumturn += turnAround;
             sumwaiting += waiting;
         }
 
-        int n = result.processes.size();
+        int n = table.size();
         result.avgWaitingTime = (n == 0) ? 0 : (sumwaiting / n);
         result.avgTurnaroundTime = (n == 0) ? 0 : (sumturn / n);
     }
-}
\ No newline at end of file
+}
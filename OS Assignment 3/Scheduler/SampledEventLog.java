@@ -0,0 +1,90 @@
+package Scheduler;
+
+import model.ProcessTable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps every {@code sampleEvery}-th event of a run as a text line, and only the
+ * most recent {@code capacity} of those, so its size does not depend on the trace length.
+ */
+public class SampledEventLog implements ScheduleListener {
+
+    private final int sampleEvery;
+    private final String[] lines;
+    private ProcessTable processes;
+    private long events;
+    private long sampled;
+
+    public SampledEventLog(int sampleEvery, int capacity) {
+        if (sampleEvery < 1 || capacity < 1) {
+            throw new IllegalArgumentException("sampleEvery and capacity must be positive");
+        }
+        this.sampleEvery = sampleEvery;
+        this.lines = new String[capacity];
+    }
+
+    @Override
+    public void onStart(ProcessTable processes) {
+        this.processes = processes;
+        events = 0;
+        sampled = 0;
+    }
+
+    @Override
+    public void onDispatch(int pid, int time) { sample(time, "dispatch", pid, ""); }
+
+    @Override
+    public void onPreemption(int pid, int time) { sample(time, "preempt", pid, ""); }
+
+    @Override
+    public void onCompletion(int pid, int time) { sample(time, "complete", pid, ""); }
+
+    // A dispatch and a preemption per slice; only the sampled events that stay in the log are formatted
+    @Override
+    public void onRounds(int time, int[] order, int rounds, int switchCost, int slice) {
+        long count = 2L * rounds * order.length;
+        long firstSampled = (events + sampleEvery - 1) / sampleEvery;     // in units of sampleEvery
+        long lastSampled = (events + count - 1) / sampleEvery;
+        long samples = Math.max(0, lastSampled - firstSampled + 1);
+        long step = switchCost + slice;
+
+        for (long m = Math.max(firstSampled, lastSampled - lines.length + 1); m <= lastSampled; m++) {
+            long event = m * sampleEvery - events;   // position in the rounds
+            long dispatch = event / 2;
+            int pid = order[(int) (dispatch % order.length)];
+            long at = time + dispatch * step + switchCost + (event % 2 == 0 ? 0 : slice);
+            lines[(int) ((sampled + m - firstSampled) % lines.length)] =
+                    "t=" + at + " " + (event % 2 == 0 ? "dispatch" : "preempt") + " " + processes.getName(pid);
+        }
+        events += count;
+        sampled += samples;
+    }
+
+    @Override
+    public void onQuantumUpdate(int pid, int quantum, int time) { sample(time, "quantum", pid, " -> " + quantum); }
+
+    @Override
+    public void onAging(int pid, int priority, int time) { sample(time, "aging", pid, " -> " + priority); }
+
+    @Override
+    public void onMigration(int pid, int fromCore, int toCore, int time) { sample(time, "migrate", pid, " core " + fromCore + " -> " + toCore); }
+
+    /** Number of events seen, sampled or not. */
+    public long getEventCount() { return events; }
+
+    /** The kept lines, oldest first. */
+    public List<String> lines() {
+        int kept = (int) Math.min(sampled, lines.length);
+        List<String> result = new ArrayList<>(kept);
+        for (long i = sampled - kept; i < sampled; i++) {
+            result.add(lines[(int) (i % lines.length)]);
+        }
+        return result;
+    }
+
+    private void sample(int time, String event, int pid, String detail) {
+        if (events++ % sampleEvery != 0) return;
+        lines[(int) (sampled++ % lines.length)] = "t=" + time + " " + event + " " + processes.getName(pid) + detail;
+    }
+}
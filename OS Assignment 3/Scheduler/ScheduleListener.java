@@ -0,0 +1,74 @@
+package Scheduler;
+
+import model.ProcessTable;
+
+/**
+ * Receives the events of a run as they happen.
+ *
+ * Processes are identified by their pid in the {@link ProcessTable} passed to {@link #onStart}.
+ * Every method has an empty default, so a listener only implements what it needs.
+ */
+public interface ScheduleListener {
+
+    /** Called once before the first event. */
+    default void onStart(ProcessTable processes) {}
+
+    /** The process gets the CPU at {@code time}. */
+    default void onDispatch(int pid, int time) {}
+
+    /** The CPU spends {@code cost} time units, from {@code time} on, switching to another process. */
+    default void onContextSwitch(int time, int cost) {}
+
+    /** The process loses the CPU at {@code time} before finishing (preempted or out of quantum). */
+    default void onPreemption(int pid, int time) {}
+
+    /** The process finishes at {@code time}; its results are already in the table. */
+    default void onCompletion(int pid, int time) {}
+
+    /**
+     * Round Robin: {@code rounds} identical rounds from {@code time} on. In every round each process
+     * of {@code order}, in that order, gets a context switch of {@code switchCost} and then runs for
+     * {@code slice} without finishing. Stands for those switch, dispatch and preemption events,
+     * which the default passes on one by one; listeners that can take a round in bulk override it.
+     * {@code order} must not be kept or changed.
+     */
+    default void onRounds(int time, int[] order, int rounds, int switchCost, int slice) {
+        for (int r = 0; r < rounds; r++) {
+            for (int pid : order) {
+                onContextSwitch(time, switchCost);
+                time += switchCost;
+                onDispatch(pid, time);
+                time += slice;
+                onPreemption(pid, time);
+            }
+        }
+    }
+
+    /** AG: the process's quantum was changed to {@code quantum}. */
+    default void onQuantumUpdate(int pid, int quantum, int time) {}
+
+    /** Priority: the waiting process aged to {@code priority}. */
+    default void onAging(int pid, int priority, int time) {}
+
+    /** SMP: the waiting process moved from the ready queue of one core to another's. */
+    default void onMigration(int pid, int fromCore, int toCore, int time) {}
+
+    /** Called once after the last process has completed. */
+    default void onEnd(int time) {}
+
+    /** Forwards every event to all given listeners, in order. */
+    static ScheduleListener of(ScheduleListener... listeners) {
+        return new ScheduleListener() {
+            @Override public void onStart(ProcessTable processes) { for (ScheduleListener l : listeners) l.onStart(processes); }
+            @Override public void onDispatch(int pid, int time) { for (ScheduleListener l : listeners) l.onDispatch(pid, time); }
+            @Override public void onContextSwitch(int time, int cost) { for (ScheduleListener l : listeners) l.onContextSwitch(time, cost); }
+            @Override public void onPreemption(int pid, int time) { for (ScheduleListener l : listeners) l.onPreemption(pid, time); }
+            @Override public void onCompletion(int pid, int time) { for (ScheduleListener l : listeners) l.onCompletion(pid, time); }
+            @Override public void onRounds(int time, int[] order, int rounds, int switchCost, int slice) { for (ScheduleListener l : listeners) l.onRounds(time, order, rounds, switchCost, slice); }
+            @Override public void onQuantumUpdate(int pid, int quantum, int time) { for (ScheduleListener l : listeners) l.onQuantumUpdate(pid, quantum, time); }
+            @Override public void onAging(int pid, int priority, int time) { for (ScheduleListener l : listeners) l.onAging(pid, priority, time); }
+            @Override public void onMigration(int pid, int fromCore, int toCore, int time) { for (ScheduleListener l : listeners) l.onMigration(pid, fromCore, toCore, time); }
+            @Override public void onEnd(int time) { for (ScheduleListener l : listeners) l.onEnd(time); }
+        };
+    }
+}
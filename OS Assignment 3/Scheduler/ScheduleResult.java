@@ -6,10 +6,28 @@ import java.util.List;
 public class ScheduleResult{
     public List<String> executionOrder = new ArrayList<>();
     public List<Process> processes = new ArrayList<>();
+    public ExecutionTimeline timeline;
+    public RunMetrics metrics;
 
     public double avgWaitingTime;
     public double avgTurnaroundTime;
 
+    // Memory the run held when it ended: the table's state and quantum histories, the
+    // scheduler's queues, heaps and arrival index, and the timeline
+    public long heapBytes;
+    public long offHeapBytes;
+
     // AG only
     public List<String> quantumHistoryLines = new ArrayList<>();
+
+    // SMP only: one timeline per core, the share of the run each core spent executing
+    // processes, and how often a waiting process moved to another core
+    public ExecutionTimeline[] coreTimelines;
+    public double[] coreUtilization;
+    public int migrations;
+
+    // CFS only: for each pid, CPU time received over its fair share of the time it was
+    // runnable (1.0 = exactly its weighted share), and Jain's fairness index over those ratios
+    public double[] fairness;
+    public double fairnessIndex;
 }
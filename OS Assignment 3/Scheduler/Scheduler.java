@@ -1,8 +1,26 @@
 package Scheduler;
 
 import model.Process;
+import model.ProcessTable;
 import java.util.List;
 
+/**
+ * Implementations keep no state between calls: one instance can run any number of
+ * schedules, also concurrently, as long as each run has its own table.
+ */
 public interface Scheduler {
     ScheduleResult schedule(List<Process> processes, int contextSwitchTime);
+
+    /**
+     * Runs directly on a process table, for example one kept off-heap or shared between runs.
+     * The table's scheduling state is reset first; results are written back into it.
+     */
+    ScheduleResult schedule(ProcessTable processes, int contextSwitchTime);
+
+    /**
+     * Streaming run: every event goes to {@code listener} as it happens and the scheduler
+     * keeps no execution or quantum history, so memory stays bounded by the table itself.
+     * Per-process results are still written into the table.
+     */
+    void stream(ProcessTable processes, int contextSwitchTime, ScheduleListener listener);
 }
\ No newline at end of file
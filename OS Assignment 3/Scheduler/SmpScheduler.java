@@ -0,0 +1,634 @@
+package Scheduler;
+
+import model.Process;
+import model.ProcessTable;
+import model.QuantumHistory;
+import model.Workload;
+import model.WorkloadReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs one of the four policies on several cores (SMP).
+ *
+ * Every core has its own ready queue, ordered the way the single-core scheduler orders its queue,
+ * and only ever runs processes from it. An arriving process goes to the least loaded core.
+ * After that, load is spread by push migration (every {@code balanceInterval} the busiest core
+ * hands waiting processes to the idlest) and/or work stealing (a core with nothing to run takes
+ * the next waiting process of the busiest one). A process that resumes on another core than it
+ * last ran on pays {@code migrationCost} on top of the context switch.
+ *
+ * Per-process results go into the table as usual. The result also has one timeline per core,
+ * the utilization of every core and the number of migrations.
+ *
+ * Each core follows the rules of the policy's single-core scheduler, whose orders and preemption
+ * rules it shares: when arrivals are taken in, when aging applies, what happens when a process
+ * arrives during a switch. On one core, with no balancing and no migration cost, the result is
+ * the same as the single-core scheduler's.
+ *
+ * Usage: java Scheduler.SmpScheduler &lt;workload.json | workload.trace&gt; [STEAL|PUSH|PUSH_AND_STEAL|NONE]
+ */
+public class SmpScheduler implements Scheduler {
+
+    public enum Policy { SJF, RR, PRIORITY, AG }
+
+    public enum Balancing { NONE, PUSH, STEAL, PUSH_AND_STEAL }
+
+    /** Machine and policy parameters. */
+    public static class Config {
+        public int cores = 4;
+        public Balancing balancing = Balancing.STEAL;
+        public int migrationCost = 1;
+        public int balanceInterval = 10;   // PUSH: time between two balancing passes
+        public int rrQuantum = 4;
+        public int agingInterval = 5;
+    }
+
+    private final Policy policy;
+    private final Config config;
+
+    public SmpScheduler(Policy policy, Config config) {
+        if (config.cores < 1) throw new IllegalArgumentException("cores must be at least 1");
+        if (policy == Policy.RR && config.rrQuantum < 1) throw new IllegalArgumentException("rrQuantum must be at least 1");
+        this.policy = policy;
+        this.config = config;
+    }
+
+    public SmpScheduler(Policy policy, int cores) {
+        this(policy, withCores(cores));
+    }
+
+    private static Config withCores(int cores) {
+        Config config = new Config();
+        config.cores = cores;
+        return config;
+    }
+
+    @Override
+    public ScheduleResult schedule(List<Process> input, int contextSwitchTime) {
+        return schedule(ProcessTable.from(input), contextSwitchTime);
+    }
+
+    @Override
+    public ScheduleResult schedule(ProcessTable table, int contextSwitchTime) {
+        ExecutionTimeline[] coreTimelines = new ExecutionTimeline[config.cores];
+        for (int c = 0; c < coreTimelines.length; c++) coreTimelines[c] = new ExecutionTimeline(table);
+
+        RunMetrics metrics = new RunMetrics(config.cores);
+        Run run = new Run(table, policy, config, contextSwitchTime, QuantumHistory.Mode.FULL, metrics, coreTimelines);
+        run.execute();
+
+        ScheduleResult result = new ScheduleResult();
+        result.coreTimelines = coreTimelines;
+        result.timeline = merge(table, coreTimelines);
+        // Collapsed where the single-core scheduler of the policy collapses it
+        result.executionOrder = result.timeline.executionOrder(policy == Policy.SJF || policy == Policy.PRIORITY);
+        result.processes = table.asProcessList();
+        result.avgWaitingTime = table.averageWaitingTime();
+        result.avgTurnaroundTime = table.averageTurnaroundTime();
+        result.coreUtilization = run.utilization();
+        result.migrations = run.migrations;
+        result.metrics = metrics;
+        long timelines = result.timeline.heapBytes();
+        for (ExecutionTimeline core : coreTimelines) timelines += core.heapBytes();
+        result.heapBytes = table.heapBytes() + run.heapBytes() + timelines;
+        result.offHeapBytes = table.offHeapBytes();
+        return result;
+    }
+
+    // Core numbers are not passed to the listener; events still arrive in time order
+    @Override
+    public void stream(ProcessTable table, int contextSwitchTime, ScheduleListener listener) {
+        new Run(table, policy, config, contextSwitchTime, QuantumHistory.Mode.NONE, listener, null).execute();
+    }
+
+    /** Prints how every policy scales from 1 to 64 cores on one workload. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java Scheduler.SmpScheduler <workload.json|workload.trace> [STEAL|PUSH|PUSH_AND_STEAL|NONE]");
+            return;
+        }
+        Workload workload = new WorkloadReader(ProcessTable.Storage.HEAP, false).read(new File(args[0]));
+        Balancing balancing = args.length > 1 ? Balancing.valueOf(args[1]) : Balancing.STEAL;
+
+        System.out.printf("%-9s %5s %14s %14s %12s %10s%n", "Policy", "Cores", "Avg waiting", "Avg turnaround", "Utilization", "Migrations");
+        for (Policy policy : Policy.values()) {
+            if (policy == Policy.RR && workload.rrQuantum < 1) {
+                System.out.println("RR        skipped: the workload has no RR quantum");
+                continue;
+            }
+            if (policy == Policy.AG && !hasQuanta(workload.processes)) {
+                System.out.println("AG        skipped: the workload has no AG quanta");
+                continue;
+            }
+            for (int cores = 1; cores <= 64; cores *= 2) {
+                Config config = new Config();
+                config.cores = cores;
+                config.balancing = balancing;
+                config.rrQuantum = workload.rrQuantum;
+                config.agingInterval = workload.agingInterval;
+
+                ScheduleResult result = new SmpScheduler(policy, config).schedule(workload.processes.newRun(), workload.contextSwitch);
+                double utilization = Arrays.stream(result.coreUtilization).average().orElse(0);
+                System.out.printf("%-9s %5d %14.2f %14.2f %11.1f%% %10d%n", policy, cores,
+                        result.avgWaitingTime, result.avgTurnaroundTime, 100 * utilization, result.migrations);
+            }
+        }
+    }
+
+    // AG makes no progress with a zero quantum
+    private static boolean hasQuanta(ProcessTable processes) {
+        for (int pid = 0; pid < processes.size(); pid++) {
+            if (processes.getInitialQuantum(pid) < 1) return false;
+        }
+        return true;
+    }
+
+    // All segments of all cores in order of their start; ties go to the lower core.
+    // Each core's timeline is already in start order, so this is a k-way merge over the cores.
+    private static ExecutionTimeline merge(ProcessTable table, ExecutionTimeline[] cores) {
+        int[] next = new int[cores.length];
+        IndexedMinHeap heads = new IndexedMinHeap(cores.length, (a, b) -> {
+            int c = Integer.compare(cores[a].getStart(next[a]), cores[b].getStart(next[b]));
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int c = 0; c < cores.length; c++) {
+            if (cores[c].size() > 0) heads.add(c);
+        }
+
+        ExecutionTimeline merged = new ExecutionTimeline(table);
+        while (!heads.isEmpty()) {
+            int c = heads.poll();
+            int s = next[c]++;
+            merged.add(cores[c].getPid(s), cores[c].getStart(s), cores[c].getEnd(s));
+            if (next[c] < cores[c].size()) heads.add(c);
+        }
+        return merged;
+    }
+
+    // All state of one run, so a single scheduler instance can run many schedules at once
+    private static class Run {
+        private final ProcessTable processes;
+        private final Policy policy;
+        private final Config config;
+        private final int contextSwitch;
+        private final ScheduleListener listener;
+        private final ScheduleListener[] coreListeners;   // null when streaming
+        private final ScheduleListener[] coreEvents;      // per core: listener, then the core's own listener
+        private final EventKernel kernel;
+        private final int cores;
+
+        // Ready queues, one per core, sharing their indexes. SJF and PRIORITY use ready,
+        // RR uses fifo, AG uses all three: fifo for order, ready by priority, byRemaining for SJF
+        private final IndexedMinHeap[] ready;
+        private final IndexedMinHeap[] byRemaining;
+        private final IndexedDeque[] fifo;
+        private final IndexedMinHeap[] agingQueue;   // PRIORITY: each core's waiting processes by next aging step
+
+        // Per core
+        private final int[] current;       // process switching to or running on the core, -1 if idle
+        private final boolean[] executing; // false while the switch to current is still going on
+        private final int[] stopAt;        // end of the switch or of the current slice
+        private final int[] accounted;     // time up to which the running process has been charged
+        private final int[] lastRan;       // last process that executed on the core
+        private final int[] lastStep;      // PRIORITY: last time the core aged its queue and looked for a better process
+        private final int[] phase;         // AG: 0 and 1 are the 25% phases, 2 the rest of the quantum
+        private final int[] phaseStart;
+        private final long[] busy;
+
+        // Per process
+        private final int[] queuedOn;      // core whose ready queue holds the process, -1 if none
+        private final int[] lastCore;      // core the process last ran on, -1 if it never ran
+
+        private int completed = 0;
+        private int nextPush;
+        int migrations = 0;
+
+        Run(ProcessTable processes, Policy policy, Config config, int contextSwitch,
+            QuantumHistory.Mode historyMode, ScheduleListener listener, ScheduleListener[] coreListeners) {
+            this.processes = processes;
+            this.policy = policy;
+            this.config = config;
+            this.cores = config.cores;
+            // AG has no context-switch cost, as in AG_Scheduler; migrations still cost
+            this.contextSwitch = policy == Policy.AG ? 0 : contextSwitch;
+            this.listener = listener;
+            this.coreListeners = coreListeners;
+            coreEvents = new ScheduleListener[cores];
+            for (int c = 0; c < cores; c++) {
+                coreEvents[c] = coreListeners == null ? listener : ScheduleListener.of(listener, coreListeners[c]);
+            }
+
+            processes.reset();
+            processes.setQuantumHistoryMode(historyMode);
+            kernel = new EventKernel(processes);
+            int n = processes.size();
+
+            // The orders of the single-core schedulers
+            IndexedMinHeap.IntComparator order = policy == Policy.SJF ? (a, b) -> SJFScheduler.compareReady(processes, a, b)
+                    : policy == Policy.PRIORITY ? (a, b) -> PriorityScheduler.compareReady(processes, a, b)
+                    : (a, b) -> AG_Scheduler.comparePriority(processes, a, b);
+            IndexedMinHeap.IntComparator remaining = (a, b) -> AG_Scheduler.compareRemaining(processes, a, b);
+            IndexedMinHeap.IntComparator agingDue = (a, b) -> PriorityScheduler.compareAgingDue(processes, a, b);
+
+            ready = new IndexedMinHeap[cores];
+            byRemaining = new IndexedMinHeap[cores];
+            fifo = new IndexedDeque[cores];
+            agingQueue = new IndexedMinHeap[cores];
+            for (int c = 0; c < cores; c++) {
+                if (policy != Policy.RR) ready[c] = c == 0 ? new IndexedMinHeap(n, order) : new IndexedMinHeap(ready[0], order);
+                if (policy == Policy.AG) {
+                    byRemaining[c] = c == 0 ? new IndexedMinHeap(n, remaining) : new IndexedMinHeap(byRemaining[0], remaining);
+                }
+                if (policy == Policy.RR || policy == Policy.AG) fifo[c] = c == 0 ? new IndexedDeque(n) : new IndexedDeque(fifo[0]);
+                if (policy == Policy.PRIORITY) {
+                    agingQueue[c] = c == 0 ? new IndexedMinHeap(n, agingDue) : new IndexedMinHeap(agingQueue[0], agingDue);
+                }
+            }
+
+            current = new int[cores];
+            executing = new boolean[cores];
+            stopAt = new int[cores];
+            accounted = new int[cores];
+            lastRan = new int[cores];
+            lastStep = new int[cores];
+            phase = new int[cores];
+            phaseStart = new int[cores];
+            busy = new long[cores];
+            Arrays.fill(current, -1);
+            Arrays.fill(lastRan, -1);
+
+            queuedOn = new int[n];
+            lastCore = new int[n];
+            Arrays.fill(queuedOn, -1);
+            Arrays.fill(lastCore, -1);
+
+            nextPush = config.balanceInterval;
+        }
+
+        long heapBytes() {
+            long bytes = kernel.heapBytes() + 2 * (16 + 4L * queuedOn.length);
+            for (int c = 0; c < cores; c++) {
+                if (ready[c] != null) bytes += ready[c].heapBytes();
+                if (byRemaining[c] != null) bytes += byRemaining[c].heapBytes();
+                if (fifo[c] != null) bytes += fifo[c].heapBytes();
+                if (agingQueue[c] != null) bytes += agingQueue[c].heapBytes();
+            }
+            return bytes;
+        }
+
+        void execute() {
+            listener.onStart(processes);
+            if (coreListeners != null) for (ScheduleListener l : coreListeners) l.onStart(processes);
+
+            while (completed < processes.size()) {
+                int now = kernel.now();
+
+                // 1. Charge the running processes up to now and retire the finished ones
+                for (int c = 0; c < cores; c++) {
+                    if (current[c] >= 0 && executing[c]) charge(c, now);
+                }
+
+                // 2. Arrivals go to the least loaded core, in the order the single-core scheduler takes them in
+                IntConsumer admit = pid -> {
+                    if (policy == Policy.PRIORITY) processes.setLastUpdate(pid, processes.getArrivalTime(pid));
+                    enqueue(leastLoaded(), pid);
+                };
+                if (policy == Policy.RR) kernel.admitArrivalsInArrivalOrder(admit);
+                else kernel.admitArrivals(admit);
+
+                // 3. Slices that end now
+                for (int c = 0; c < cores; c++) {
+                    if (current[c] >= 0 && executing[c] && stopAt[c] == now) endSlice(c, now);
+                }
+
+                balance(now);
+
+                // 4. Switches that end now, and preemption of running processes
+                for (int c = 0; c < cores; c++) {
+                    if (current[c] < 0) continue;
+                    if (!executing[c]) {
+                        if (stopAt[c] == now) endSwitch(c, now);
+                    } else if (policy == Policy.SJF) {
+                        int best = ready[c].peek();
+                        if (best >= 0 && SJFScheduler.preempts(processes, best, current[c])) preempt(c, now);
+                    } else if (policy == Policy.PRIORITY && now > lastStep[c]) {
+                        // Only after at least one unit has run, as in PriorityScheduler
+                        age(c, now);
+                        int best = ready[c].peek();
+                        if (best >= 0 && PriorityScheduler.shouldPreempt(processes, best, current[c])) preempt(c, now);
+                    }
+                }
+
+                // 5. Idle cores take the next process from their own queue
+                for (int c = 0; c < cores; c++) {
+                    if (current[c] >= 0) continue;
+                    if (policy == Policy.PRIORITY) age(c, now);
+                    int pid = dequeue(c);
+                    if (pid >= 0) dispatch(c, pid, now);
+                }
+
+                if (completed == processes.size()) break;
+                advance(now);
+            }
+
+            listener.onEnd(kernel.now());
+            if (coreListeners != null) for (ScheduleListener l : coreListeners) l.onEnd(kernel.now());
+        }
+
+        double[] utilization() {
+            double[] result = new double[cores];
+            int end = kernel.now();
+            for (int c = 0; c < cores; c++) result[c] = end == 0 ? 0 : (double) busy[c] / end;
+            return result;
+        }
+
+        // ================= Cores =================
+
+        // Starts the switch to pid, which is off the queue; runs it right away if nothing is charged
+        private void dispatch(int c, int pid, int now) {
+            int cost = 0;
+            boolean switched = false;
+            if (lastRan[c] >= 0 && lastRan[c] != pid) {
+                cost += contextSwitch;
+                switched = true;
+            }
+            if (lastCore[pid] >= 0 && lastCore[pid] != c) {
+                cost += config.migrationCost;
+                switched = true;
+            }
+            // A migration counts as a switch and its cost as switch overhead
+            if (switched) listener.onContextSwitch(now, cost);
+
+            current[c] = pid;
+            if (cost == 0) {
+                begin(c, now);
+            } else {
+                executing[c] = false;
+                stopAt[c] = now + cost;
+            }
+        }
+
+        // Processes may have arrived during the switch. SJF then runs a shorter one instead, without
+        // paying again; PRIORITY puts the candidate back and pays a new switch to a better one. Both
+        // are what their single-core schedulers do. RR and AG run the process they switched to.
+        private void endSwitch(int c, int now) {
+            int pid = current[c];
+            int best = ready[c] != null ? ready[c].peek() : -1;
+            if (best >= 0 && policy == Policy.SJF && SJFScheduler.compareReady(processes, best, pid) < 0) {
+                removeFromQueue(c, best);
+                enqueue(c, pid);
+                current[c] = best;
+            } else if (best >= 0 && policy == Policy.PRIORITY && PriorityScheduler.shouldPreempt(processes, best, pid)) {
+                current[c] = -1;
+                requeue(c, pid, now);
+                dispatch(c, dequeue(c), now);
+                return;
+            }
+            begin(c, now);
+        }
+
+        private void begin(int c, int now) {
+            int pid = current[c];
+            executing[c] = true;
+            accounted[c] = now;
+            lastStep[c] = now;
+            lastCore[pid] = c;
+            processes.setStartTime(pid, now);
+            coreEvents[c].onDispatch(pid, now);
+
+            int remaining = processes.getRemainingBurstTime(pid);
+            switch (policy) {
+                case RR:
+                    stopAt[c] = now + Math.min(config.rrQuantum, remaining);
+                    break;
+                case AG:
+                    phase[c] = 0;
+                    phaseStart[c] = now;
+                    stopAt[c] = now + Math.min(AG_Scheduler.phaseLength(processes, pid), remaining);
+                    break;
+                default:
+                    // Runs until it completes or something better shows up in its queue
+                    stopAt[c] = now + remaining;
+            }
+        }
+
+        private void charge(int c, int now) {
+            int pid = current[c];
+            int ran = now - accounted[c];
+            if (ran <= 0) return;
+
+            processes.execute(pid, ran);
+            busy[c] += ran;
+            accounted[c] = now;
+
+            if (processes.isCompleted(pid)) {
+                completed++;
+                if (policy == Policy.AG) {
+                    AG_Scheduler.complete(processes, pid, now, coreEvents[c]);
+                } else {
+                    processes.complete(pid, now);
+                    coreEvents[c].onCompletion(pid, now);
+                }
+                lastRan[c] = pid;
+                current[c] = -1;
+            }
+        }
+
+        // The running process goes back to the core's queue
+        private void preempt(int c, int now) {
+            int pid = current[c];
+            coreEvents[c].onPreemption(pid, now);
+            lastRan[c] = pid;
+            current[c] = -1;
+            requeue(c, pid, now);
+        }
+
+        private void endSlice(int c, int now) {
+            if (policy == Policy.RR) preempt(c, now);
+            else if (policy == Policy.AG) endAgPhase(c, current[c], now);
+        }
+
+        // Same rules as AG_Scheduler, with the core's own queue as the ready queue
+        private void endAgPhase(int c, int pid, int now) {
+            int rq = processes.getRemainingQuantum(pid) - (now - phaseStart[c]);
+            processes.setRemainingQuantum(pid, rq);
+            phaseStart[c] = now;
+
+            if (phase[c] == 0) {
+                int best = ready[c].peek();
+                if (best >= 0 && AG_Scheduler.comparePriority(processes, best, pid) < 0) {
+                    agRequeue(c, pid, (int) Math.ceil(rq / 2.0), now);
+                    removeFromQueue(c, best);
+                    dispatch(c, best, now);
+                    return;
+                }
+                phase[c] = 1;
+                stopAt[c] = now + Math.min(AG_Scheduler.phaseLength(processes, pid), processes.getRemainingBurstTime(pid));
+                return;
+            }
+
+            if (phase[c] == 1) {
+                int shortest = byRemaining[c].peek();
+                if (shortest >= 0 && processes.getRemainingBurstTime(shortest) < processes.getRemainingBurstTime(pid)) {
+                    agRequeue(c, pid, rq, now);
+                    removeFromQueue(c, shortest);
+                    dispatch(c, shortest, now);
+                    return;
+                }
+                phase[c] = 2;
+                if (rq > 0) {
+                    stopAt[c] = now + Math.min(rq, processes.getRemainingBurstTime(pid));
+                    return;
+                }
+            }
+
+            // Quantum used up
+            agRequeue(c, pid, 2, now);
+        }
+
+        private void agRequeue(int c, int pid, int bonus, int now) {
+            AG_Scheduler.requeueWithBonus(processes, pid, bonus, now, coreEvents[c]);
+            lastRan[c] = pid;
+            current[c] = -1;
+            enqueue(c, pid);
+        }
+
+        // PRIORITY: lazy aging of the core's queue, as PriorityScheduler does at every step
+        private void age(int c, int now) {
+            PriorityScheduler.applyAging(processes, ready[c], agingQueue[c], config.agingInterval, now, listener);
+            lastStep[c] = now;
+        }
+
+        // ================= Queues =================
+
+        private void enqueue(int c, int pid) {
+            queuedOn[pid] = c;
+            if (fifo[c] != null) fifo[c].addLast(pid);
+            if (ready[c] != null) ready[c].add(pid);
+            if (byRemaining[c] != null) byRemaining[c].add(pid);
+            if (agingQueue[c] != null) PriorityScheduler.scheduleAging(processes, agingQueue[c], config.agingInterval, pid);
+        }
+
+        // A preempted PRIORITY process starts waiting, and aging, from now
+        private void requeue(int c, int pid, int now) {
+            if (policy == Policy.PRIORITY) processes.setLastUpdate(pid, now);
+            enqueue(c, pid);
+        }
+
+        private void removeFromQueue(int c, int pid) {
+            queuedOn[pid] = -1;
+            if (fifo[c] != null) fifo[c].remove(pid);
+            if (ready[c] != null) ready[c].remove(pid);
+            if (byRemaining[c] != null) byRemaining[c].remove(pid);
+            if (agingQueue[c] != null) agingQueue[c].remove(pid);
+        }
+
+        private int head(int c) {
+            return fifo[c] != null ? fifo[c].peekFirst() : ready[c].peek();
+        }
+
+        private int dequeue(int c) {
+            int pid = head(c);
+            if (pid >= 0) removeFromQueue(c, pid);
+            return pid;
+        }
+
+        private int waiting(int c) {
+            return fifo[c] != null ? fifo[c].size() : ready[c].size();
+        }
+
+        private int load(int c) {
+            return waiting(c) + (current[c] >= 0 ? 1 : 0);
+        }
+
+        private int leastLoaded() {
+            int best = 0;
+            for (int c = 1; c < cores; c++) {
+                if (load(c) < load(best)) best = c;
+            }
+            return best;
+        }
+
+        // Core with the most waiting processes; ties go to the lower core
+        private int busiest() {
+            int best = 0;
+            for (int c = 1; c < cores; c++) {
+                if (waiting(c) > waiting(best)) best = c;
+            }
+            return best;
+        }
+
+        // Busy core with the most waiting processes, or -1. Idle cores are never robbed:
+        // whatever waits there runs next anyway, and stealing it would only pass it around.
+        private int stealVictim() {
+            int best = -1;
+            for (int c = 0; c < cores; c++) {
+                if (current[c] >= 0 && waiting(c) > 0 && (best < 0 || waiting(c) > waiting(best))) best = c;
+            }
+            return best;
+        }
+
+        // ================= Load balancing =================
+
+        private void balance(int now) {
+            Balancing mode = config.balancing;
+            if (cores == 1 || mode == Balancing.NONE) return;
+
+            if ((mode == Balancing.PUSH || mode == Balancing.PUSH_AND_STEAL) && now >= nextPush) {
+                nextPush = now + config.balanceInterval;
+                while (true) {
+                    int from = busiest(), to = leastLoaded();
+                    if (waiting(from) == 0 || load(from) - load(to) <= 1) break;
+                    migrate(from, to, now);
+                }
+            }
+
+            if (mode == Balancing.STEAL || mode == Balancing.PUSH_AND_STEAL) {
+                for (int c = 0; c < cores; c++) {
+                    if (current[c] >= 0 || waiting(c) > 0) continue;
+                    int victim = stealVictim();
+                    if (victim < 0) break;
+                    migrate(victim, c, now);
+                }
+            }
+        }
+
+        // Moves the process that is next in line on one core to the back of another core's queue.
+        // A PRIORITY process keeps its aging progress.
+        private void migrate(int from, int to, int now) {
+            int pid = dequeue(from);
+            enqueue(to, pid);
+            migrations++;
+            listener.onMigration(pid, from, to, now);
+        }
+
+        // ================= Next event =================
+
+        private void advance(int now) {
+            int next = EventKernel.NO_EVENT;
+            boolean anyIdle = false, anyWaiting = false;
+            for (int c = 0; c < cores; c++) {
+                if (current[c] < 0) {
+                    anyIdle = true;
+                } else {
+                    next = Math.min(next, stopAt[c]);
+                    if (policy == Policy.PRIORITY && executing[c]) {
+                        int agingAt = PriorityScheduler.nextAgingStep(processes, agingQueue[c], config.agingInterval);
+                        next = Math.min(next, Math.max(lastStep[c] + 1, agingAt));
+                    }
+                }
+                if (waiting(c) > 0) anyWaiting = true;
+            }
+            boolean push = config.balancing == Balancing.PUSH || config.balancing == Balancing.PUSH_AND_STEAL;
+            if (push && cores > 1 && anyWaiting) next = Math.min(next, Math.max(now + 1, nextPush));
+
+            // AG takes arrivals in only at the end of a phase, or when a core has nothing to run
+            if (policy == Policy.AG && !anyIdle) kernel.advanceBy(next - now);
+            else kernel.advanceToNextEvent(next, EventKernel.NO_EVENT, EventKernel.NO_EVENT);
+        }
+    }
+}
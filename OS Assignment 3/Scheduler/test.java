@@ -1,32 +1,133 @@
 package Scheduler;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import model.Process;
+import model.ProcessTable;
+import model.QuantumHistory;
+import model.Workload;
+import model.WorkloadReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class test {
 
     private static final boolean OUTPUT_TO_JSON = false;
+    private static final boolean COMPACT_JSON = false;   // one line instead of pretty-printed
+
+    // Where process state lives during a run; OFF_HEAP keeps it outside the Java heap
+    private static final ProcessTable.Storage STORAGE = ProcessTable.Storage.HEAP;
+    private static final boolean REPORT_MEMORY = false;
+
+    // FULL keeps every AG quantum update; SUMMARY and NONE save memory on long runs
+    private static final QuantumHistory.Mode QUANTUM_HISTORY = QuantumHistory.Mode.FULL;
 
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private static final List<Map<String, Object>> allResults = new ArrayList<>();
+    private static final WorkloadReader workloadReader = new WorkloadReader(STORAGE, true);
+    private static JsonWriter jsonOut;   // results are appended as soon as each run finishes
+
+    // (file × scheduler) jobs run on a pool of this many threads; output stays in file, then scheduler order.
+    // With VIRTUAL_THREADS each job gets a virtual thread instead, where the JDK has them (21+).
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final boolean VIRTUAL_THREADS = false;
+
+    // Runs shared scheduler instances concurrently and checks them against sequential runs.
+    // Opt-in, as it takes longer than the suite itself: run with -Dstress=true or pass "stress".
+    private static final boolean STRESS_TEST = Boolean.getBoolean("stress");
+
+    // Checks that SmpScheduler on one core gives the single-core results. Opt-in as well:
+    // run with -Dsmp=true or pass "smp".
+    private static final boolean SMP_CHECK = Boolean.getBoolean("smp");
+
+    // Checks lazy Priority aging against the per-tick loop it replaced, with priorities down to -3.
+    // Opt-in as well: run with -Dagingcheck=true or pass "aging".
+    private static final boolean AGING_CHECK = Boolean.getBoolean("agingcheck");
+
+    // Checks that CFS gives equal-weight CPU-bound processes their fair share (ratio about 1)
+    // when context switches cost time. Opt-in as well: run with -Dfairness=true or pass "fairness".
+    private static final boolean FAIRNESS_CHECK = Boolean.getBoolean("fairness");
+
+    private static ExecutorService pool;
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final AtomicLong cpuNanos = new AtomicLong();
+
+    private static class RunResult {
+        final String schedulerName;
+        final ScheduleResult result;
+        final Map<String, Object> expected;
+
+        RunResult(String schedulerName, ScheduleResult result, Map<String, Object> expected) {
+            this.schedulerName = schedulerName;
+            this.result = result;
+            this.expected = expected;
+        }
+    }
+
+    private static class FileResult {
+        final String fileName;
+        final String memoryReport;
+        final List<RunResult> runs;
+        final Throwable error;
+
+        FileResult(String fileName, String memoryReport, List<RunResult> runs, Throwable error) {
+            this.fileName = fileName;
+            this.memoryReport = memoryReport;
+            this.runs = runs;
+            this.error = error;
+        }
+    }
 
     public static void main(String[] args) {
         System.out.println("Running Tests...");
         System.out.println("Output Mode: " + (OUTPUT_TO_JSON ? "JSON File" : "Terminal"));
         System.out.println("============================");
 
+        if (OUTPUT_TO_JSON) {
+            try {
+                jsonOut = new JsonWriter(new BufferedWriter(new FileWriter("output.json")));
+                if (!COMPACT_JSON) jsonOut.setIndent("  ");
+                jsonOut.beginArray();
+            } catch (IOException e) {
+                System.err.println("Error writing output file: " + e.getMessage());
+                return;
+            }
+        }
+
+        pool = createPool();
+        long wallStart = System.nanoTime();
+
         runTestSuite("AG", "AG");
         runTestSuite("Other_Schedulers", "OTHER");
 
-        // If JSON mode is on, write the accumulated file at the end
+        if (STRESS_TEST || Arrays.asList(args).contains("stress")) runConcurrencyStress();
+        if (SMP_CHECK || Arrays.asList(args).contains("smp")) runSmpCheck();
+        if (AGING_CHECK || Arrays.asList(args).contains("aging")) runAgingCheck();
+        if (FAIRNESS_CHECK || Arrays.asList(args).contains("fairness")) runFairnessCheck();
+
+        pool.shutdown();
+        long wall = System.nanoTime() - wallStart;
+        System.out.printf("\nWall-clock: %d ms, CPU in jobs: %d ms (%.1fx)\n",
+                wall / 1_000_000, cpuNanos.get() / 1_000_000, (double) cpuNanos.get() / Math.max(1, wall));
+
         if (OUTPUT_TO_JSON) {
-            try (FileWriter writer = new FileWriter("output.json")) {
-                gson.toJson(allResults, writer);
+            try {
+                jsonOut.endArray();
+                jsonOut.close();
                 System.out.println("\nSuccess! Results written to 'output.json'");
             } catch (IOException e) {
                 System.err.println("Error writing output file: " + e.getMessage());
@@ -34,6 +135,17 @@ public class test {
         }
     }
 
+    private static ExecutorService createPool() {
+        if (VIRTUAL_THREADS) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads not available, using " + THREADS + " threads");
+            }
+        }
+        return Executors.newFixedThreadPool(THREADS);
+    }
+
     private static void runTestSuite(String folderPath, String type) {
         File folder = new File(folderPath);
         if (!folder.exists()) {
@@ -43,68 +155,389 @@ public class test {
 
         File[] listOfFiles = folder.listFiles((dir, name) -> name.endsWith(".json"));
         if (listOfFiles == null) return;
+        Arrays.sort(listOfFiles, Comparator.comparing(File::getName));
 
+        // Files run ahead on the pool but are reported in order; the window bounds
+        // how many finished results wait in memory for an earlier file
+        Deque<CompletableFuture<FileResult>> inFlight = new ArrayDeque<>();
         for (File file : listOfFiles) {
-            try (FileReader reader = new FileReader(file)) {
-                Map<String, Object> data = gson.fromJson(reader, Map.class);
-                Map<String, Object> input = (Map<String, Object>) data.get("input");
-                Map<String, Object> expected = (Map<String, Object>) data.get("expectedOutput");
-                List<Map<String, Object>> procData = (List<Map<String, Object>>) input.get("processes");
-
-                List<Process> processes = new ArrayList<>();
-                for (Map<String, Object> p : procData) {
-                    processes.add(new Process(
-                            (String) p.get("name"),
-                            ((Double) p.get("arrival")).intValue(),
-                            ((Double) p.get("burst")).intValue(),
-                            ((Double) p.get("priority")).intValue(),
-                            p.containsKey("quantum") ? ((Double) p.get("quantum")).intValue() : 0
-                    ));
-                }
+            inFlight.addLast(runFile(file, type));
+            if (inFlight.size() >= 4 * THREADS) report(inFlight.removeFirst().join());
+        }
+        while (!inFlight.isEmpty()) report(inFlight.removeFirst().join());
+    }
+
+    // Loads the file, then runs each of its schedulers as a separate job on its own copy of the table
+    private static CompletableFuture<FileResult> runFile(File file, String type) {
+        return CompletableFuture.supplyAsync(() -> timed(() -> load(file)), pool)
+                .thenCompose(workload -> {
+                    Map<String, Object> expected = workload.expectedOutput;
+                    int cs = workload.contextSwitch;
+                    String memory = REPORT_MEMORY ? workload.processes.memoryReport() : null;
+
+                    List<CompletableFuture<RunResult>> runs = new ArrayList<>();
+                    if (type.equals("AG")) {
+                        AG_Scheduler ag = new AG_Scheduler(QUANTUM_HISTORY);
+                        runs.add(submit("AG", workload.processes.newRun(), t -> ag.schedule(t, cs), expected));
+                    } else {
+                        runStandardCompare(workload, runs);
+                    }
+
+                    return CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(done -> new FileResult(file.getName(), memory, runs.stream().map(CompletableFuture::join).toList(), null));
+                })
+                .exceptionally(e -> new FileResult(file.getName(), null, List.of(),
+                        e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+
+    private static Workload load(File file) {
+        try {
+            // Streams input.processes straight into a table; only expectedOutput becomes a map
+            return workloadReader.read(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-                int cs = input.containsKey("contextSwitch") ? ((Double) input.get("contextSwitch")).intValue() : 0;
-                int rrQ = input.containsKey("rrQuantum") ? ((Double) input.get("rrQuantum")).intValue() : 0;
-                int agingInterval = input.containsKey("agingInterval") ? ((Double) input.get("agingInterval")).intValue() : 5;
+    private static void runStandardCompare(Workload workload, List<CompletableFuture<RunResult>> runs) {
+        Map<String, Object> expectedRoot = workload.expectedOutput;
+        int cs = workload.contextSwitch;
+        int rrQ = workload.rrQuantum;
+        int agingInterval = workload.agingInterval;
+
+        List<String> schedulers = new ArrayList<>();
+        for (String key : List.of("SJF", "RR", "Priority")) {
+            if (expectedRoot.containsKey(key)) schedulers.add(key);
+        }
+
+        // Every job needs its own scheduling state; the input rows are shared between them
+        List<ProcessTable> tables = new ArrayList<>();
+        for (int i = 0; i < schedulers.size(); i++) {
+            tables.add(workload.processes.newRun());
+        }
+
+        for (int i = 0; i < schedulers.size(); i++) {
+            String key = schedulers.get(i);
+            Map<String, Object> expected = (Map<String, Object>) expectedRoot.get(key);
+            ProcessTable table = tables.get(i);
+
+            if (key.equals("SJF"))
+                runs.add(submit("SJF", table, t -> new SJFScheduler().schedule(t, cs), expected));
+            else if (key.equals("RR"))
+                runs.add(submit("Round Robin", table, t -> new RoundRobinScheduler(rrQ).schedule(t, cs), expected));
+            else
+                // FIX: Pass agingInterval to the schedule method
+                runs.add(submit("Priority", table, t -> new PriorityScheduler().schedule(t, cs, agingInterval), expected));
+        }
+    }
 
-                if (!OUTPUT_TO_JSON) {
-                    System.out.println("\nProcessing Test File: " + file.getName());
+    private static CompletableFuture<RunResult> submit(String schedulerName, ProcessTable table, Function<ProcessTable, ScheduleResult> run, Map<String, Object> expected) {
+        return CompletableFuture.supplyAsync(() -> new RunResult(schedulerName, timed(() -> run.apply(table)), expected), pool);
+    }
+
+    // Runs the task and adds the CPU time it used on this thread to the total
+    private static <T> T timed(Supplier<T> task) {
+        long start = threads.getCurrentThreadCpuTime();
+        try {
+            return task.get();
+        } finally {
+            cpuNanos.addAndGet(threads.getCurrentThreadCpuTime() - start);
+        }
+    }
+
+    private static void report(FileResult file) {
+        if (file.error != null) {
+            System.err.println("Error processing " + file.fileName + ": " + file.error.getMessage());
+            return;
+        }
+
+        if (!OUTPUT_TO_JSON) {
+            System.out.println("\nProcessing Test File: " + file.fileName);
+        }
+        if (file.memoryReport != null) {
+            System.out.println("Memory: " + file.memoryReport);
+        }
+
+        for (RunResult run : file.runs) {
+            try {
+                handleResult(file.fileName, run.schedulerName, run.result, run.expected);
+            } catch (IOException e) {
+                System.err.println("Error processing " + file.fileName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // One instance of each scheduler is shared by every job; each job has its own run state.
+    // Any per-instance run state would make concurrent runs disagree with the sequential ones.
+    private static void runConcurrencyStress() {
+        Scheduler[] shared = { new SJFScheduler(), new RoundRobinScheduler(3), new PriorityScheduler(), new AG_Scheduler() };
+        int contextSwitch = 1;
+        int repetitions = 8;
+
+        Random random = new Random(42);
+        List<ProcessTable> workloads = new ArrayList<>();
+        for (int w = 0; w < 40; w++) {
+            ProcessTable table = new ProcessTable(1 + random.nextInt(60));
+            for (int pid = 0; pid < table.size(); pid++) {
+                table.set(pid, "P" + pid, random.nextInt(50), 1 + random.nextInt(20), 1 + random.nextInt(10), 2 + random.nextInt(7));
+            }
+            workloads.add(table);
+        }
+
+        String[][] expected = new String[workloads.size()][shared.length];
+        for (int w = 0; w < workloads.size(); w++) {
+            for (int s = 0; s < shared.length; s++) {
+                expected[w][s] = fingerprint(shared[s].schedule(workloads.get(w).newRun(), contextSwitch));
+            }
+        }
+
+        // More threads than cores, so runs on the same instance interleave
+        ExecutorService stressPool = Executors.newFixedThreadPool(Math.max(4, 2 * THREADS));
+        List<Future<Boolean>> checks = new ArrayList<>();
+        for (int r = 0; r < repetitions; r++) {
+            for (int w = 0; w < workloads.size(); w++) {
+                for (int s = 0; s < shared.length; s++) {
+                    ProcessTable table = workloads.get(w).newRun();
+                    Scheduler scheduler = shared[s];
+                    String want = expected[w][s];
+                    checks.add(stressPool.submit(() -> fingerprint(scheduler.schedule(table, contextSwitch)).equals(want)));
                 }
+            }
+        }
+
+        int mismatches = 0;
+        for (Future<Boolean> check : checks) {
+            try {
+                if (!check.get()) mismatches++;
+            } catch (InterruptedException | ExecutionException e) {
+                mismatches++;
+            }
+        }
+        stressPool.shutdown();
+
+        System.out.printf("\nConcurrency stress: %d runs on %d shared schedulers, %d mismatches%s\n",
+                checks.size(), shared.length, mismatches, mismatches == 0 ? " - OK" : " - FAILED");
+    }
+
+    // With one core, no balancing and no migration cost, every SMP policy must reproduce its
+    // single-core scheduler exactly: order, per-process times, quantum histories and switch counts.
+    private static void runSmpCheck() {
+        Random random = new Random(7);
+        int runs = 0;
+        int mismatches = 0;
 
-                if (type.equals("AG")) {
-                    AG_Scheduler ag = new AG_Scheduler();
-                    handleResult(file.getName(), "AG", ag.schedule(processes, cs), expected);
-                } else {
-                    runStandardCompare(file.getName(), processes, cs, rrQ, agingInterval, expected);
+        for (int w = 0; w < 500; w++) {
+            // Few distinct arrivals and repeated names, so the tie-breaking rules get exercised.
+            // Quanta start at 2: AG_Scheduler overdraws a quantum of 1 in its first two phases.
+            ProcessTable table = new ProcessTable(1 + random.nextInt(w % 10 == 0 ? 40 : 10));
+            for (int pid = 0; pid < table.size(); pid++) {
+                String name = "P" + (w % 5 == 0 ? random.nextInt(table.size()) : pid);
+                table.set(pid, name, random.nextInt(w % 3 == 0 ? 5 : 40), 1 + random.nextInt(15), 1 + random.nextInt(10), 2 + random.nextInt(7));
+            }
+            int contextSwitch = random.nextInt(4);
+
+            SmpScheduler.Config config = new SmpScheduler.Config();
+            config.cores = 1;
+            config.balancing = SmpScheduler.Balancing.NONE;
+            config.migrationCost = 0;
+            config.rrQuantum = 1 + random.nextInt(6);
+            config.agingInterval = random.nextInt(9);
+
+            // In SmpScheduler.Policy order
+            ScheduleResult[] expected = {
+                new SJFScheduler().schedule(table.newRun(), contextSwitch),
+                new RoundRobinScheduler(config.rrQuantum).schedule(table.newRun(), contextSwitch),
+                new PriorityScheduler().schedule(table.newRun(), contextSwitch, config.agingInterval),
+                new AG_Scheduler().schedule(table.newRun(), contextSwitch) };
+            for (SmpScheduler.Policy policy : SmpScheduler.Policy.values()) {
+                ScheduleResult smp = new SmpScheduler(policy, config).schedule(table.newRun(), contextSwitch);
+                ScheduleResult want = expected[policy.ordinal()];
+                runs++;
+                if (!fingerprint(smp).equals(fingerprint(want)) || !smp.metrics.toString().equals(want.metrics.toString())) mismatches++;
+            }
+        }
+
+        System.out.printf("\nSMP on one core: %d runs against the single-core schedulers, %d mismatches%s\n",
+                runs, mismatches, mismatches == 0 ? " - OK" : " - FAILED");
+    }
+
+    private static void runFairnessCheck() {
+        Random random = new Random(7);
+        int mismatches = 0;
+        int workloads = 500;
+
+        for (int w = 0; w < workloads; w++) {
+            // All arrive at once with the same burst and priority; only slice rounding keeps them off 1
+            ProcessTable table = new ProcessTable(2 + random.nextInt(7));
+            int burst = 100 + random.nextInt(400);
+            int priority = random.nextInt(5);
+            for (int pid = 0; pid < table.size(); pid++) table.set(pid, "P" + pid, 0, burst, priority, 2);
+            int contextSwitch = 1 + random.nextInt(5);
+
+            ScheduleResult result = new CFSScheduler().schedule(table, contextSwitch);
+            for (double ratio : result.fairness) {
+                if (Math.abs(ratio - 1) > 0.1) {
+                    mismatches++;
+                    break;
                 }
-            } catch (Exception e) {
-                System.err.println("Error processing " + file.getName() + ": " + e.getMessage());
             }
         }
+
+        System.out.printf("\nCFS fairness with context switches: %d workloads, %d mismatches%s\n",
+                workloads, mismatches, mismatches == 0 ? " - OK" : " - FAILED");
     }
 
-    private static void runStandardCompare(String fileName, List<Process> data, int cs, int rrQ, int agingInterval, Map<String, Object> expectedRoot) {
-        if (expectedRoot.containsKey("SJF"))
-            runAndCompare(fileName, "SJF", new SJFScheduler(), data, cs, agingInterval, (Map<String, Object>) expectedRoot.get("SJF"));
+    private static void runAgingCheck() {
+        Random random = new Random(11);
+        int mismatches = 0;
+        int workloads = 2000;
 
-        if (expectedRoot.containsKey("RR"))
-            runAndCompare(fileName, "Round Robin", new RoundRobinScheduler(rrQ), data, cs, agingInterval, (Map<String, Object>) expectedRoot.get("RR"));
+        for (int w = 0; w < workloads; w++) {
+            // Distinct names: the old loop left ties in priority, arrival and name to the PriorityQueue
+            ProcessTable table = new ProcessTable(1 + random.nextInt(w % 10 == 0 ? 30 : 10));
+            for (int pid = 0; pid < table.size(); pid++) {
+                table.set(pid, "P" + pid, random.nextInt(w % 3 == 0 ? 5 : 40), 1 + random.nextInt(15), random.nextInt(14) - 3, 2);
+            }
+            int contextSwitch = random.nextInt(4);
+            int agingInterval = random.nextInt(8);
+
+            ScheduleResult lazy = new PriorityScheduler().schedule(table.newRun(), contextSwitch, agingInterval);
+            StringBuilder sb = new StringBuilder(String.join(",", lazy.executionOrder));
+            for (Process p : lazy.processes) sb.append('|').append(p.getWaitingTime()).append(',').append(p.getTurnaroundTime());
+
+            if (!sb.toString().equals(new PerTickPriority(table, agingInterval).run(contextSwitch))) mismatches++;
+        }
 
-        if (expectedRoot.containsKey("Priority"))
-            runAndComparePriority(fileName, "Priority", new PriorityScheduler(), data, cs, agingInterval, (Map<String, Object>) expectedRoot.get("Priority"));
+        System.out.printf("\nPriority aging: %d workloads against the per-tick loop, %d mismatches%s\n",
+                workloads, mismatches, mismatches == 0 ? " - OK" : " - FAILED");
     }
 
-    private static void runAndCompare(String fileName, String schedulerName, Scheduler s, List<Process> data, int cs, int agingInterval, Map<String, Object> expected) {
-        handleResult(fileName, schedulerName, s.schedule(Process.copyList(data), cs), expected);
+    // The Priority loop before lazy aging: one time unit per step, and every waiting process aged at every step
+    private static class PerTickPriority {
+        final ProcessTable table;
+        final int agingInterval;
+        final int[] remaining, priority, lastUpdate, completion;
+        final PriorityQueue<Integer> readyQueue;
+        int time = 0;
+
+        PerTickPriority(ProcessTable table, int agingInterval) {
+            this.table = table;
+            this.agingInterval = agingInterval;
+            int n = table.size();
+            remaining = new int[n];
+            priority = new int[n];
+            lastUpdate = new int[n];
+            completion = new int[n];
+            for (int pid = 0; pid < n; pid++) {
+                remaining[pid] = table.getTotalBurstTime(pid);
+                priority[pid] = table.getInitialPriority(pid);
+            }
+            readyQueue = new PriorityQueue<>(Comparator.<Integer>comparingInt(p -> priority[p])
+                    .thenComparingInt(table::getArrivalTime).thenComparing(table::getName));
+        }
+
+        // Same format as the check builds from the lazy result
+        String run(int contextSwitch) {
+            List<String> order = new ArrayList<>();
+            int completed = 0, current = -1, lastExecuted = -1;
+
+            while (completed < table.size()) {
+                addArrivals();
+                applyAging();
+
+                if (current >= 0 && !readyQueue.isEmpty() && shouldPreempt(readyQueue.peek(), current)) {
+                    lastUpdate[current] = time;
+                    readyQueue.add(current);
+                    current = -1;
+                }
+
+                if (current < 0) {
+                    if (readyQueue.isEmpty()) {
+                        time++;
+                        continue;
+                    }
+                    while (true) {
+                        int candidate = readyQueue.poll();
+                        if (lastExecuted >= 0 && candidate != lastExecuted) {
+                            for (int i = 0; i < contextSwitch; i++) {
+                                time++;
+                                addArrivals();
+                            }
+                        }
+                        if (!readyQueue.isEmpty() && shouldPreempt(readyQueue.peek(), candidate)) {
+                            lastUpdate[candidate] = time;
+                            readyQueue.add(candidate);
+                            continue;
+                        }
+                        current = candidate;
+                        break;
+                    }
+                }
+
+                if (order.isEmpty() || !order.get(order.size() - 1).equals(table.getName(current))) order.add(table.getName(current));
+                remaining[current]--;
+                time++;
+                lastExecuted = current;
+                if (remaining[current] == 0) {
+                    completed++;
+                    completion[current] = time;
+                    current = -1;
+                }
+            }
+
+            StringBuilder sb = new StringBuilder(String.join(",", order));
+            for (int pid = 0; pid < table.size(); pid++) {
+                int turnaround = completion[pid] - table.getArrivalTime(pid);
+                sb.append('|').append(turnaround - table.getTotalBurstTime(pid)).append(',').append(turnaround);
+            }
+            return sb.toString();
+        }
+
+        void addArrivals() {
+            for (int pid = 0; pid < table.size(); pid++) {
+                if (table.getArrivalTime(pid) == time) {
+                    lastUpdate[pid] = time;
+                    readyQueue.add(pid);
+                }
+            }
+        }
+
+        void applyAging() {
+            if (agingInterval <= 0) return;
+            boolean changed = false;
+            for (int pid : readyQueue) {
+                int steps = (time - lastUpdate[pid]) / agingInterval;
+                if (steps > 0) {
+                    priority[pid] = Math.max(1, priority[pid] - steps);
+                    lastUpdate[pid] = time;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                List<Integer> waiting = new ArrayList<>(readyQueue);
+                readyQueue.clear();
+                readyQueue.addAll(waiting);
+            }
+        }
+
+        boolean shouldPreempt(int best, int running) {
+            if (priority[best] != priority[running]) return priority[best] < priority[running];
+            if (table.getArrivalTime(best) != table.getArrivalTime(running)) return table.getArrivalTime(best) < table.getArrivalTime(running);
+            return table.getName(best).compareTo(table.getName(running)) < 0;
+        }
     }
 
-    private static void runAndComparePriority(String fileName, String schedulerName, PriorityScheduler s, List<Process> data, int cs, int agingInterval, Map<String, Object> expected) {
-        // FIX: Pass agingInterval to the schedule method
-        handleResult(fileName, schedulerName, s.schedule(Process.copyList(data), cs, agingInterval), expected);
+    private static String fingerprint(ScheduleResult result) {
+        StringBuilder sb = new StringBuilder(String.join(",", result.executionOrder));
+        for (Process p : result.processes) {
+            sb.append('|').append(p.getWaitingTime()).append(',').append(p.getTurnaroundTime()).append(p.getQuantumHistory());
+        }
+        return sb.append('|').append(result.avgWaitingTime).append(',').append(result.avgTurnaroundTime).toString();
     }
 
-    private static void handleResult(String fileName, String schedulerName, ScheduleResult actual, Map<String, Object> expected) {
+    private static void handleResult(String fileName, String schedulerName, ScheduleResult actual, Map<String, Object> expected) throws IOException {
         if (OUTPUT_TO_JSON) {
-            addToJsonList(fileName, schedulerName, actual, expected);
+            writeJsonResult(fileName, schedulerName, actual, expected);
         } else {
             printToTerminal(schedulerName, actual, expected);
         }
@@ -119,6 +552,9 @@ public class test {
             System.out.printf("%-10s  %-12d  %-15d  %-15d\n", p.getName(), p.getTotalBurstTime(), p.getWaitingTime(), p.getTurnaroundTime());
         }
         System.out.printf("Avg Wait: %.2f  Avg TAT: %.2f\n", actual.avgWaitingTime, actual.avgTurnaroundTime);
+        if (REPORT_MEMORY) {
+            System.out.printf("Run memory: heap %,d bytes, off-heap %,d bytes\n", actual.heapBytes, actual.offHeapBytes);
+        }
 
         System.out.println("\nExpected Result");
         System.out.println("Order: " + expected.get("executionOrder"));
@@ -126,30 +562,35 @@ public class test {
         System.out.println("......................................................................");
     }
 
-    // Logic for JSON Collection
-    private static void addToJsonList(String fileName, String schedulerName, ScheduleResult actual, Map<String, Object> expected) {
-        Map<String, Object> resultEntry = new LinkedHashMap<>();
-        resultEntry.put("testFile", fileName);
-        resultEntry.put("scheduler", schedulerName);
+    // Logic for JSON Output: one array element per run, written and flushed right away
+    private static void writeJsonResult(String fileName, String schedulerName, ScheduleResult actual, Map<String, Object> expected) throws IOException {
+        jsonOut.beginObject();
+        jsonOut.name("testFile").value(fileName);
+        jsonOut.name("scheduler").value(schedulerName);
 
-        Map<String, Object> actualMap = new LinkedHashMap<>();
-        actualMap.put("executionOrder", actual.executionOrder);
-        actualMap.put("averageWaitingTime", actual.avgWaitingTime);
-        actualMap.put("averageTurnaroundTime", actual.avgTurnaroundTime);
+        jsonOut.name("actualOutput").beginObject();
+        jsonOut.name("executionOrder").beginArray();
+        for (String name : actual.executionOrder) {
+            jsonOut.value(name);
+        }
+        jsonOut.endArray();
+        jsonOut.name("averageWaitingTime").value(actual.avgWaitingTime);
+        jsonOut.name("averageTurnaroundTime").value(actual.avgTurnaroundTime);
 
-        List<Map<String, Object>> procDetails = new ArrayList<>();
+        jsonOut.name("processes").beginArray();
         for (Process p : actual.processes) {
-            Map<String, Object> pInfo = new LinkedHashMap<>();
-            pInfo.put("name", p.getName());
-            pInfo.put("waitingTime", p.getWaitingTime());
-            pInfo.put("turnaroundTime", p.getTurnaroundTime());
-            procDetails.add(pInfo);
+            jsonOut.beginObject();
+            jsonOut.name("name").value(p.getName());
+            jsonOut.name("waitingTime").value(p.getWaitingTime());
+            jsonOut.name("turnaroundTime").value(p.getTurnaroundTime());
+            jsonOut.endObject();
         }
-        actualMap.put("processes", procDetails);
-
-        resultEntry.put("actualOutput", actualMap);
-        resultEntry.put("expectedOutput", expected);
+        jsonOut.endArray();
+        jsonOut.endObject();
 
-        allResults.add(resultEntry);
+        jsonOut.name("expectedOutput");
+        gson.toJson(expected, Map.class, jsonOut);
+        jsonOut.endObject();
+        jsonOut.flush();
     }
 }
\ No newline at end of file
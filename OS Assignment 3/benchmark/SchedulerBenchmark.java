@@ -0,0 +1,285 @@
+package benchmark;
+
+import Scheduler.AG_Scheduler;
+import Scheduler.CFSScheduler;
+import Scheduler.MLFQScheduler;
+import Scheduler.PriorityScheduler;
+import Scheduler.RoundRobinScheduler;
+import Scheduler.SJFScheduler;
+import Scheduler.ScheduleResult;
+import Scheduler.Scheduler;
+import com.google.gson.stream.JsonWriter;
+import model.ProcessTable;
+import model.WorkloadGenerator;
+import model.WorkloadGenerator.BurstDistribution;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and allocation benchmark for all schedulers, laid out like a JMH run:
+ * every parameter combination gets warmup iterations followed by measured iterations
+ * of fixed duration, results go through a blackhole, and allocation is reported per
+ * operation ({@code gc.alloc.rate.norm}). The JSON output uses JMH's result format.
+ *
+ * Parameters: scheduler x processes x burst distribution x context switch.
+ *
+ * Like JMH, every combination runs in JVMs of its own ({@code -f} of them, one after another,
+ * with the same classpath and JVM options). In a shared JVM the JIT compiles for whatever ran
+ * first, so later benchmarks would be measured against code profiled for other schedulers.
+ * {@code -f 0} runs everything in this JVM, for quick checks only.
+ *
+ * Usage: java benchmark.SchedulerBenchmark [-n 10,1000,100000,1000000] [-b SJF,RR,Priority,AG,MLFQ,CFS]
+ *        [-d UNIFORM,EXPONENTIAL,PARETO] [-c 0,2] [-f 1] [-wi 3] [-i 5] [-t 1000] [-o results.json]
+ */
+public class SchedulerBenchmark {
+
+    private static final long SEED = 42;
+    private static final int RR_QUANTUM = 4;
+    private static final String FORKED = "--forked";
+
+    // Settings, overridable from the command line
+    private static int[] sizes = { 10, 1_000, 100_000, 1_000_000 };
+    private static String[] schedulers = { "SJF", "RR", "Priority", "AG", "MLFQ", "CFS" };
+    private static BurstDistribution[] distributions = BurstDistribution.values();
+    private static int[] contextSwitches = { 0, 2 };
+    private static int forks = 1;
+    private static int warmupIterations = 3;
+    private static int iterations = 5;
+    private static long iterationMillis = 1000;
+    private static String output = null;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are folded into this so the JIT cannot drop a run
+    private static double blackhole;
+
+    public static void main(String[] args) throws IOException {
+        // A forked JVM runs the single combination it was given and prints the raw data
+        if (args.length > 0 && args[0].equals(FORKED)) {
+            parseArgs(Arrays.copyOfRange(args, 1, args.length));
+            double[][] raw = iterations(create(schedulers[0]), workload(sizes[0], distributions[0]), contextSwitches[0]);
+            for (double[] row : raw) {
+                System.out.println(String.join(" ", Arrays.stream(row).mapToObj(Double::toString).toArray(String[]::new)));
+            }
+            if (blackhole == 42.0) System.out.println();
+            return;
+        }
+
+        parseArgs(args);
+        if (forks == 0) {
+            System.out.println("Warning: -f 0 runs every benchmark in this JVM; results depend on the order they run in");
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        System.out.printf("%-9s %10s %-12s %4s %14s %12s %16s%n",
+                "Scheduler", "Processes", "Bursts", "CS", "ms/op", "+- error", "alloc B/op");
+
+        for (String name : schedulers) {
+            for (int size : sizes) {
+                for (BurstDistribution distribution : distributions) {
+                    // Forked runs generate their own copy
+                    ProcessTable table = forks == 0 ? workload(size, distribution) : null;
+                    for (int cs : contextSwitches) {
+                        results.add(measure(name, size, table, distribution, cs));
+                    }
+                }
+            }
+        }
+
+        if (output != null) {
+            writeJson(results);
+            System.out.println("Results written to " + output);
+        }
+        if (blackhole == 42.0) System.out.println();
+    }
+
+    // Measured iterations of every fork, one row per fork as in JMH's rawData
+    private static Map<String, Object> measure(String name, int size, ProcessTable table, BurstDistribution distribution, int cs)
+            throws IOException {
+        double[][] msPerOp = new double[Math.max(1, forks)][];
+        double[][] bytesPerOp = new double[msPerOp.length][];
+        for (int f = 0; f < msPerOp.length; f++) {
+            double[][] raw = forks == 0 ? iterations(create(name), table, cs) : fork(name, size, distribution, cs);
+            msPerOp[f] = raw[0];
+            bytesPerOp[f] = raw[1];
+        }
+
+        double[] allMs = flatten(msPerOp);
+        double[] allBytes = flatten(bytesPerOp);
+        double score = mean(allMs);
+        double error = error(allMs);
+        double alloc = mean(allBytes);
+        System.out.printf("%-9s %10d %-12s %4d %14.4f %12.4f %16.0f%n",
+                name, size, distribution, cs, score, error, alloc);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("benchmark", "benchmark.SchedulerBenchmark." + name);
+        result.put("mode", "avgt");
+        result.put("forks", forks);
+        result.put("warmupIterations", warmupIterations);
+        result.put("measurementIterations", iterations);
+        result.put("measurementTime", iterationMillis + " ms");
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("processes", String.valueOf(size));
+        params.put("bursts", distribution.name());
+        params.put("contextSwitch", String.valueOf(cs));
+        result.put("params", params);
+
+        result.put("primaryMetric", metric(score, error, "ms/op", msPerOp));
+        Map<String, Object> secondary = new LinkedHashMap<>();
+        secondary.put("gc.alloc.rate.norm", metric(alloc, error(allBytes), "B/op", bytesPerOp));
+        secondary.put("processes.rate", metric(size / score * 1000, 0, "processes/s", new double[][] { new double[0] }));
+        result.put("secondaryMetrics", secondary);
+        return result;
+    }
+
+    // Warmup, then the measured iterations; returns {ms/op per iteration, bytes/op per iteration}
+    private static double[][] iterations(Scheduler scheduler, ProcessTable table, int cs) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(scheduler, table, cs);
+        }
+
+        double[][] raw = new double[2][iterations];
+        for (int i = 0; i < iterations; i++) {
+            double[] r = iteration(scheduler, table, cs);
+            raw[0][i] = r[0];
+            raw[1][i] = r[1];
+        }
+        return raw;
+    }
+
+    // Runs one combination in a new JVM with this JVM's classpath and options (a debugger agent aside)
+    private static double[][] fork(String name, int size, BurstDistribution distribution, int cs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!option.startsWith("-agentlib:jdwp")) command.add(option);
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), SchedulerBenchmark.class.getName(), FORKED,
+                "-b", name, "-n", String.valueOf(size), "-d", distribution.name(), "-c", String.valueOf(cs),
+                "-wi", String.valueOf(warmupIterations), "-i", String.valueOf(iterations), "-t", String.valueOf(iterationMillis)));
+
+        java.lang.Process child = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<double[]> rows = new ArrayList<>();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                if (!line.isEmpty()) rows.add(Arrays.stream(line.split(" ")).mapToDouble(Double::parseDouble).toArray());
+            }
+        }
+        try {
+            int exit = child.waitFor();
+            if (exit != 0 || rows.size() != 2) throw new IOException("forked benchmark " + name + " failed (exit code " + exit + ")");
+        } catch (InterruptedException e) {
+            child.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for a forked benchmark", e);
+        }
+        return rows.toArray(new double[0][]);
+    }
+
+    // Runs whole operations until the iteration time is used up; returns {ms/op, bytes/op}
+    private static double[] iteration(Scheduler scheduler, ProcessTable table, int cs) {
+        long thread = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        int ops = 0;
+
+        do {
+            ScheduleResult result = scheduler.schedule(table, cs);
+            blackhole += result.avgWaitingTime + result.executionOrder.size();
+            ops++;
+        } while (System.nanoTime() < deadline);
+
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - allocated;
+        return new double[] { elapsed / 1e6 / ops, (double) bytes / ops };
+    }
+
+    private static Scheduler create(String name) {
+        switch (name) {
+            case "SJF":      return new SJFScheduler();
+            case "RR":       return new RoundRobinScheduler(RR_QUANTUM);
+            case "Priority": return new PriorityScheduler();
+            case "AG":       return new AG_Scheduler();
+            case "MLFQ":     return new MLFQScheduler();
+            case "CFS":      return new CFSScheduler();
+            default:         throw new IllegalArgumentException("Unknown scheduler: " + name);
+        }
+    }
+
+    // Poisson arrivals at about 90% load, bursts from the given distribution
+    static ProcessTable workload(int size, BurstDistribution distribution) {
+        WorkloadGenerator.Config config = new WorkloadGenerator.Config();
+        config.processes = size;
+        config.burstDistribution = distribution;
+        config.maxBurst = 10_000;
+        config.arrivalRate = 0.9 / config.meanBurst;
+        return new WorkloadGenerator(config, SEED).toTable(ProcessTable.Storage.HEAP);
+    }
+
+    private static Map<String, Object> metric(double score, double error, String unit, double[][] raw) {
+        Map<String, Object> metric = new LinkedHashMap<>();
+        metric.put("score", score);
+        metric.put("scoreError", error);
+        metric.put("scoreUnit", unit);
+        metric.put("rawData", raw);
+        return metric;
+    }
+
+    private static double[] flatten(double[][] rows) {
+        return Arrays.stream(rows).flatMapToDouble(Arrays::stream).toArray();
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    // Half-width of a 99.9% confidence interval (normal approximation)
+    private static double error(double[] values) {
+        if (values.length < 2) return Double.NaN;
+        double mean = mean(values), sq = 0;
+        for (double v : values) sq += (v - mean) * (v - mean);
+        return 3.29 * Math.sqrt(sq / (values.length - 1)) / Math.sqrt(values.length);
+    }
+
+    private static void writeJson(List<Map<String, Object>> results) throws IOException {
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(new FileWriter(output)))) {
+            json.setIndent("    ");
+            new com.google.gson.GsonBuilder().serializeSpecialFloatingPointValues().create()
+                    .toJson(results, List.class, json);
+        }
+    }
+
+    private static void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-n":  sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "-b":  schedulers = value.split(","); break;
+                case "-d":  distributions = Arrays.stream(value.split(",")).map(BurstDistribution::valueOf).toArray(BurstDistribution[]::new); break;
+                case "-c":  contextSwitches = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "-f":  forks = Integer.parseInt(value); break;
+                case "-wi": warmupIterations = Integer.parseInt(value); break;
+                case "-i":  iterations = Integer.parseInt(value); break;
+                case "-t":  iterationMillis = Long.parseLong(value); break;
+                case "-o":  output = value; break;
+                default:    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+}
@@ -1,4 +1,6 @@
 import model.Process;
+import model.ProcessSpec;
+import model.ProcessTable;
 import Scheduler.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,7 +25,7 @@ public class main {
         System.out.print("Enter context switching time: ");
         int contextSwitchTime = in.nextInt();
 
-        List<Process> processes = new ArrayList<>();
+        List<ProcessSpec> specs = new ArrayList<>();
 
         for (int i = 0; i < n; i++) {
             System.out.println("\n--- Process " + (i + 1) + " Configuration ---");
@@ -38,9 +40,12 @@ public class main {
             System.out.print("AG Quantum: ");
             int agQuantum = in.nextInt();
 
-            processes.add(new Process(name, arrivalTime, burstTime, priority, agQuantum));
+            specs.add(new ProcessSpec(name, arrivalTime, burstTime, priority, agQuantum));
         }
 
+        // One table for all runs: every run resets its scheduling state, the input is never copied
+        ProcessTable processes = ProcessTable.fromSpecs(specs);
+
         // 2. EXECUTION: Standard Schedulers
         runAndPrintResults("Shortest Job First (Preemptive)", new SJFScheduler(), processes, contextSwitchTime);
         runAndPrintResults("Round Robin", new RoundRobinScheduler(rrQuantum), processes, contextSwitchTime);
@@ -51,7 +56,6 @@ public class main {
         System.out.println("RUNNING: AG SCHEDULER");
         System.out.println("========================================");
 
-        // Use copy to preserve original process data
         AG_Scheduler ag = new AG_Scheduler();
         ScheduleResult agReport = ag.schedule(processes, contextSwitchTime);
 
@@ -69,6 +73,7 @@ public class main {
 
         System.out.printf("\nAverage Waiting Time: %.2f\n", agReport.avgWaitingTime);
         System.out.printf("Average Turnaround Time: %.2f\n", agReport.avgTurnaroundTime);
+        System.out.println("Run Metrics: " + agReport.metrics);
         System.out.println("========================================\n");
 
         in.close();
@@ -77,9 +82,8 @@ public class main {
     /**
      * UPDATED: Helper method to run a scheduler and print professional Metric Tables
      */
-    private static void runAndPrintResults(String schedulerName, Scheduler scheduler, List<Process> originalList, int contextSwitch) {
-        List<Process> inputCopy = Process.copyList(originalList);
-        ScheduleResult result = scheduler.schedule(inputCopy, contextSwitch);
+    private static void runAndPrintResults(String schedulerName, Scheduler scheduler, ProcessTable processes, int contextSwitch) {
+        ScheduleResult result = scheduler.schedule(processes, contextSwitch);
 
         System.out.println("\n========================================");
         System.out.println("RUNNING: " + schedulerName);
@@ -91,6 +95,7 @@ public class main {
 
         System.out.printf("\nAverage Waiting Time: %.2f\n", result.avgWaitingTime);
         System.out.printf("Average Turnaround Time: %.2f\n", result.avgTurnaroundTime);
+        System.out.println("Run Metrics: " + result.metrics);
         System.out.println("========================================\n");
     }
 
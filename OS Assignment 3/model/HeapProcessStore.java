@@ -0,0 +1,81 @@
+package model;
+
+import java.util.Arrays;
+
+/** One int[] per column plus a String[] of names, all on the Java heap. */
+class HeapProcessStore implements ProcessStore {
+
+    private final int[][] columns;
+    private String[] names;
+
+    HeapProcessStore(int size) {
+        this.columns = new int[COLUMNS][size];
+        this.names = new String[size];
+    }
+
+    private HeapProcessStore(int size, int firstColumn) {
+        this.columns = new int[COLUMNS][];
+        for (int c = firstColumn; c < COLUMNS; c++) columns[c] = new int[size];
+        this.names = null;
+    }
+
+    /** Only the scheduling state columns and no names, for the state of a {@link RunStateStore}. */
+    static HeapProcessStore stateOnly(int size) {
+        return new HeapProcessStore(size, REMAINING);
+    }
+
+    // One column at a time, so growing never needs twice the whole table at once
+    @Override
+    public void ensureCapacity(int size) {
+        if (names == null) throw new UnsupportedOperationException("a state-only store has a fixed size");
+        if (size <= names.length) return;
+        for (int c = 0; c < COLUMNS; c++) columns[c] = Arrays.copyOf(columns[c], size);
+        names = Arrays.copyOf(names, size);
+    }
+
+    @Override
+    public int get(int pid, int column) {
+        return columns[column][pid];
+    }
+
+    @Override
+    public void set(int pid, int column, int value) {
+        columns[column][pid] = value;
+    }
+
+    @Override
+    public String getName(int pid) {
+        return names[pid];
+    }
+
+    @Override
+    public void setName(int pid, String name) {
+        names[pid] = name;
+    }
+
+    @Override
+    public int compareNames(int a, int b) {
+        return names[a].compareTo(names[b]);
+    }
+
+    @Override
+    public long heapBytes() {
+        long bytes = 16 + 8L * COLUMNS;
+        for (int[] column : columns) {
+            if (column != null) bytes += 16 + 4L * column.length;
+        }
+        if (names == null) return bytes;
+
+        bytes += 16 + 8L * names.length;
+        for (String name : names) {
+            // String header + backing array (Latin-1 names use one byte per char)
+            if (name != null) bytes += 24 + 16 + name.length();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+}
@@ -0,0 +1,92 @@
+package model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The input columns and names of a binary trace, read in place from the mapped file
+ * (see {@link TraceFile} for the layout). Read-only, and without scheduling state:
+ * runs keep theirs in a {@link RunStateStore} over this one.
+ *
+ * Nothing is copied or decoded up front; the operating system pages the file in as
+ * rows are read.
+ */
+class MappedProcessStore implements ProcessStore {
+
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] nameIndex;
+    private final ByteBuffer[] chars;
+    private final long mappedBytes;
+
+    MappedProcessStore(ByteBuffer[] records, ByteBuffer[] nameIndex, ByteBuffer[] chars, long mappedBytes) {
+        this.records = records;
+        this.nameIndex = nameIndex;
+        this.chars = chars;
+        this.mappedBytes = mappedBytes;
+    }
+
+    // Byte position of a record field; the input columns follow the name id in column order
+    private int recordInt(int pid, int field) {
+        return records[pid >>> TraceFile.RECORD_CHUNK_SHIFT]
+                .getInt((pid & TraceFile.RECORD_CHUNK_MASK) * TraceFile.RECORD_BYTES + 4 * field);
+    }
+
+    @Override
+    public int get(int pid, int column) {
+        if (column >= REMAINING) throw new UnsupportedOperationException("a trace holds only the input; schedule a newRun() of it");
+        return recordInt(pid, 1 + column);
+    }
+
+    @Override
+    public void set(int pid, int column, int value) {
+        throw new UnsupportedOperationException("traces are read-only");
+    }
+
+    // Offset of the name in the character region: an int length, then UTF-16 chars
+    private long nameOffset(int pid) {
+        int id = recordInt(pid, 0);
+        return nameIndex[id >>> TraceFile.INDEX_CHUNK_SHIFT].getLong((id & TraceFile.INDEX_CHUNK_MASK) * 8);
+    }
+
+    @Override
+    public String getName(int pid) {
+        long offset = nameOffset(pid);
+        ByteBuffer text = chars[(int) (offset / TraceFile.CHARS_CHUNK_BYTES)];
+        int start = (int) (offset % TraceFile.CHARS_CHUNK_BYTES);
+        int length = text.getInt(start);
+
+        char[] name = new char[length];
+        for (int i = 0; i < length; i++) name[i] = text.getChar(start + 4 + 2 * i);
+        return new String(name);
+    }
+
+    @Override
+    public void setName(int pid, String name) {
+        throw new UnsupportedOperationException("traces are read-only");
+    }
+
+    @Override
+    public int compareNames(int a, int b) {
+        long offA = nameOffset(a), offB = nameOffset(b);
+        if (offA == offB) return 0;
+
+        ByteBuffer textA = chars[(int) (offA / TraceFile.CHARS_CHUNK_BYTES)], textB = chars[(int) (offB / TraceFile.CHARS_CHUNK_BYTES)];
+        int startA = (int) (offA % TraceFile.CHARS_CHUNK_BYTES), startB = (int) (offB % TraceFile.CHARS_CHUNK_BYTES);
+        int lenA = textA.getInt(startA), lenB = textB.getInt(startB);
+        for (int i = 0, n = Math.min(lenA, lenB); i < n; i++) {
+            char ca = textA.getChar(startA + 4 + 2 * i), cb = textB.getChar(startB + 4 + 2 * i);
+            if (ca != cb) return ca - cb;
+        }
+        return lenA - lenB;
+    }
+
+    @Override
+    public long heapBytes() {
+        return 16 + 8L * (records.length + nameIndex.length + chars.length);
+    }
+
+    // Mapped pages belong to the page cache, not to the process, but they are outside the heap
+    @Override
+    public long offHeapBytes() {
+        return mappedBytes;
+    }
+}
@@ -0,0 +1,166 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Rows laid out back to back in direct ByteBuffers, outside the Java heap and
+ * invisible to the garbage collector.
+ *
+ * A single direct buffer is limited to 2 GB, so rows are split over chunks of
+ * a power-of-two number of rows. Names are stored as UTF-16 chars in a separate
+ * append-only arena, addressed by an offset and length kept in the row.
+ * A state-only store has just the scheduling state columns in its rows, and no names.
+ */
+class OffHeapProcessStore implements ProcessStore {
+
+    // Full row layout: the int columns, then the name's arena offset (long) and length (int)
+    private static final int NAME_OFFSET = COLUMNS * 4;
+    private static final int NAME_LENGTH = NAME_OFFSET + 8;
+    private static final int FULL_ROW_BYTES = NAME_LENGTH + 4;
+    private static final int STATE_ROW_BYTES = (COLUMNS - REMAINING) * 4;
+
+    private static final int CHUNK_SHIFT = 24;                 // 16M rows per chunk
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int ARENA_CHUNK_BYTES = 1 << 30;
+
+    private ByteBuffer[] rows;
+    private final int rowBytes;
+    private final int firstColumn;   // the first column kept in a row; earlier ones are absent
+    private ByteBuffer[] arena = new ByteBuffer[0];
+    private long arenaEnd = 0;
+    private long offHeapBytes = 0;
+
+    OffHeapProcessStore(int size) {
+        this(size, 0, FULL_ROW_BYTES);
+    }
+
+    private OffHeapProcessStore(int size, int firstColumn, int rowBytes) {
+        this.firstColumn = firstColumn;
+        this.rowBytes = rowBytes;
+        int chunks = (int) (((long) size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        this.rows = new ByteBuffer[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int rowsInChunk = Math.min(1 << CHUNK_SHIFT, size - (c << CHUNK_SHIFT));
+            rows[c] = ByteBuffer.allocateDirect(rowsInChunk * rowBytes).order(ByteOrder.nativeOrder());
+            offHeapBytes += rows[c].capacity();
+        }
+    }
+
+    /** Only the scheduling state columns and no names, for the state of a {@link RunStateStore}. */
+    static OffHeapProcessStore stateOnly(int size) {
+        return new OffHeapProcessStore(size, REMAINING, STATE_ROW_BYTES);
+    }
+
+    // Full chunks stay where they are; only the last chunk is reallocated, doubling until it is full
+    @Override
+    public void ensureCapacity(int size) {
+        int chunks = (int) (((long) size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        if (chunks > rows.length) rows = Arrays.copyOf(rows, chunks);
+
+        for (int c = 0; c < chunks; c++) {
+            int needed = Math.min(1 << CHUNK_SHIFT, size - (c << CHUNK_SHIFT)) * rowBytes;
+            ByteBuffer chunk = rows[c];
+            int capacity = chunk == null ? 0 : chunk.capacity();
+            if (capacity >= needed) continue;
+
+            int grown = (int) Math.min((long) rowBytes << CHUNK_SHIFT, Math.max(needed, 2L * capacity));
+            ByteBuffer larger = ByteBuffer.allocateDirect(grown).order(ByteOrder.nativeOrder());
+            if (chunk != null) larger.put(chunk.duplicate().clear());
+            rows[c] = larger;
+            offHeapBytes += grown - capacity;
+        }
+    }
+
+    private ByteBuffer chunk(int pid) {
+        return rows[pid >>> CHUNK_SHIFT];
+    }
+
+    private int base(int pid) {
+        return (pid & CHUNK_MASK) * rowBytes;
+    }
+
+    @Override
+    public int get(int pid, int column) {
+        return chunk(pid).getInt(base(pid) + (column - firstColumn) * 4);
+    }
+
+    @Override
+    public void set(int pid, int column, int value) {
+        chunk(pid).putInt(base(pid) + (column - firstColumn) * 4, value);
+    }
+
+    @Override
+    public String getName(int pid) {
+        ByteBuffer row = chunk(pid);
+        long offset = row.getLong(base(pid) + NAME_OFFSET);
+        int length = row.getInt(base(pid) + NAME_LENGTH);
+
+        ByteBuffer text = arena[(int) (offset / ARENA_CHUNK_BYTES)];
+        int start = (int) (offset % ARENA_CHUNK_BYTES);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = text.getChar(start + 2 * i);
+        return new String(chars);
+    }
+
+    @Override
+    public void setName(int pid, String name) {
+        int bytes = 2 * name.length();
+        if (bytes > ARENA_CHUNK_BYTES) throw new IllegalArgumentException("Process name too long");
+
+        // Names never straddle two arena chunks
+        long chunkStart = arenaEnd / ARENA_CHUNK_BYTES * ARENA_CHUNK_BYTES;
+        if (arenaEnd + bytes > chunkStart + ARENA_CHUNK_BYTES) arenaEnd = chunkStart + ARENA_CHUNK_BYTES;
+        int index = (int) (arenaEnd / ARENA_CHUNK_BYTES);
+        int start = (int) (arenaEnd % ARENA_CHUNK_BYTES);
+        ByteBuffer text = ensureArena(index, start + bytes);
+        for (int i = 0; i < name.length(); i++) text.putChar(start + 2 * i, name.charAt(i));
+
+        ByteBuffer row = chunk(pid);
+        row.putLong(base(pid) + NAME_OFFSET, arenaEnd);
+        row.putInt(base(pid) + NAME_LENGTH, name.length());
+        arenaEnd += bytes;
+    }
+
+    // Arena chunks start small and double up to ARENA_CHUNK_BYTES, so small tables stay small
+    private ByteBuffer ensureArena(int index, int needed) {
+        if (index >= arena.length) arena = Arrays.copyOf(arena, index + 1);
+
+        ByteBuffer text = arena[index];
+        int capacity = text == null ? 0 : text.capacity();
+        if (capacity >= needed) return text;
+
+        int grown = (int) Math.min(ARENA_CHUNK_BYTES, Math.max((long) needed, Math.max(1 << 16, 2L * capacity)));
+        ByteBuffer larger = ByteBuffer.allocateDirect(grown).order(ByteOrder.nativeOrder());
+        if (text != null) larger.put(text.duplicate().clear());
+        arena[index] = larger;
+        offHeapBytes += grown - capacity;
+        return larger;
+    }
+
+    @Override
+    public int compareNames(int a, int b) {
+        ByteBuffer rowA = chunk(a), rowB = chunk(b);
+        long offA = rowA.getLong(base(a) + NAME_OFFSET), offB = rowB.getLong(base(b) + NAME_OFFSET);
+        int lenA = rowA.getInt(base(a) + NAME_LENGTH), lenB = rowB.getInt(base(b) + NAME_LENGTH);
+
+        ByteBuffer textA = arena[(int) (offA / ARENA_CHUNK_BYTES)], textB = arena[(int) (offB / ARENA_CHUNK_BYTES)];
+        int startA = (int) (offA % ARENA_CHUNK_BYTES), startB = (int) (offB % ARENA_CHUNK_BYTES);
+        for (int i = 0, n = Math.min(lenA, lenB); i < n; i++) {
+            char ca = textA.getChar(startA + 2 * i), cb = textB.getChar(startB + 2 * i);
+            if (ca != cb) return ca - cb;
+        }
+        return lenA - lenB;
+    }
+
+    @Override
+    public long heapBytes() {
+        return 16 + 8L * rows.length + 16 + 8L * arena.length;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return offHeapBytes;
+    }
+}
@@ -24,7 +24,7 @@ public class Process {
     private int completionTime;
     private int startTime;
     private boolean started;// Flag to track if the process has started
-    private ArrayList<Integer> quantumHistory;
+    private QuantumHistory quantumHistory;
     private int timeExecutedInCurrentQuantum;
     private int currentPhase;
 
@@ -45,7 +45,7 @@ public class Process {
         this.completionTime = 0;
         this.startTime = -1;
         this.started = false;
-        this.quantumHistory = new ArrayList<>();
+        this.quantumHistory = new QuantumHistory(QuantumHistory.Mode.FULL);
         this.quantumHistory.add(initialQuantum);
         this.timeExecutedInCurrentQuantum = 0;
         this.currentPhase = 1;
@@ -91,7 +91,8 @@ public class Process {
     public int getCompletionTime() { return completionTime; }
     public int getStartTime() { return startTime; }
     public boolean hasStarted() { return started; }
-    public ArrayList<Integer> getQuantumHistory() { return quantumHistory; }
+    public ArrayList<Integer> getQuantumHistory() { return new ArrayList<>(quantumHistory.toList()); }
+    public QuantumHistory getQuantumHistoryStore() { return quantumHistory; }
     public int getTimeExecutedInCurrentQuantum() {return timeExecutedInCurrentQuantum;}
     public int getCurrentPhase() {return currentPhase;}
 
@@ -103,21 +104,13 @@ public class Process {
     public void setWaitingTime(int waitingTime) { this.waitingTime = waitingTime; }
     public void setTurnaroundTime(int turnaroundTime) { this.turnaroundTime = turnaroundTime; }
     public void setCompletionTime(int completionTime) { this.completionTime = completionTime; }
+    public void setQuantumHistory(QuantumHistory quantumHistory) { this.quantumHistory = quantumHistory; }
     public void setStartTime(int startTime) {
         if (!started) {
             this.startTime = startTime;
             this.started = true;
         }
     }
-    public static ArrayList<Process> copyList(List<Process> input) {
-        ArrayList<Process> copy = new ArrayList<>();
-        for (Process p : input) {
-            Process newP = new Process(p.name, p.arrivalTime, p.totalBurstTime, p.initialPriority, p.initialQuantum);
-            newP.setDynamicPriority(p.getDynamicPriority());
-            copy.add(newP);
-        }
-        return copy;
-    }
     public int getLastUpdate() {
         return lastUpdate;
     }
@@ -133,5 +126,16 @@ public class Process {
     public void setPid(int pid) {
         this.pid = pid;
     }
+
+    /**
+     * Fresh copies of the processes, with their input attributes and dynamic priority.
+     * @deprecated schedule a {@link ProcessTable#from(List)} table; its results are Process objects again
+     */
+    @Deprecated
+    public static ArrayList<Process> copyList(List<Process> input) {
+        ArrayList<Process> copy = new ArrayList<>(ProcessTable.from(input).asProcessList());
+        for (int i = 0; i < copy.size(); i++) copy.get(i).setDynamicPriority(input.get(i).getDynamicPriority());
+        return copy;
+    }
 }
 
@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * The input attributes of one process. Immutable, so one spec list can feed any number of runs;
+ * everything a scheduler changes lives in a {@link ProcessTable}.
+ */
+public final class ProcessSpec {
+
+    private final String name;
+    private final int arrivalTime;
+    private final int totalBurstTime;
+    private final int initialPriority;
+    private final int initialQuantum;
+
+    public ProcessSpec(String name, int arrivalTime, int totalBurstTime, int initialPriority, int initialQuantum) {
+        this.name = name;
+        this.arrivalTime = arrivalTime;
+        this.totalBurstTime = totalBurstTime;
+        this.initialPriority = initialPriority;
+        this.initialQuantum = initialQuantum;
+    }
+
+    public String getName() { return name; }
+    public int getArrivalTime() { return arrivalTime; }
+    public int getTotalBurstTime() { return totalBurstTime; }
+    public int getInitialPriority() { return initialPriority; }
+    public int getInitialQuantum() { return initialQuantum; }
+
+    @Override
+    public String toString() {
+        return String.format("%s(arrival=%d, burst=%d, priority=%d, quantum=%d)",
+                name, arrivalTime, totalBurstTime, initialPriority, initialQuantum);
+    }
+}
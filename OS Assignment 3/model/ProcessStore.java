@@ -0,0 +1,46 @@
+package model;
+
+/**
+ * Backing storage for the rows of a {@link ProcessTable}.
+ * Every row holds {@link #COLUMNS} int attributes and a name.
+ */
+interface ProcessStore {
+
+    // Column numbers
+    int ARRIVAL = 0;
+    int BURST = 1;
+    int PRIORITY = 2;
+    int QUANTUM = 3;
+    int REMAINING = 4;
+    int CURRENT_QUANTUM = 5;
+    int REMAINING_QUANTUM = 6;
+    int DYNAMIC_PRIORITY = 7;
+    int LAST_UPDATE = 8;
+    int START = 9;
+    int COMPLETION = 10;
+    int WAITING = 11;
+    int TURNAROUND = 12;
+    int COLUMNS = 13;
+
+    int get(int pid, int column);
+
+    void set(int pid, int column, int value);
+
+    String getName(int pid);
+
+    void setName(int pid, String name);
+
+    /** Same result as {@code getName(a).compareTo(getName(b))}, without materializing the names. */
+    int compareNames(int a, int b);
+
+    /** Makes room for rows up to {@code size}, keeping the rows already there; fixed-size stores refuse. */
+    default void ensureCapacity(int size) {
+        throw new UnsupportedOperationException("this store has a fixed size");
+    }
+
+    /** Approximate bytes held on the Java heap. */
+    long heapBytes();
+
+    /** Bytes held outside the Java heap. */
+    long offHeapBytes();
+}
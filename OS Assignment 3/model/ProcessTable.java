@@ -0,0 +1,485 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Column-oriented storage for the processes of one simulation run.
+ *
+ * Every attribute of {@link Process} is held as a primitive column, indexed
+ * by the process id (pid), which is the position of the process in the input list.
+ * Schedulers work on the columns directly; {@link #asProcessList()} hands out a
+ * snapshot of the rows as regular {@link Process} objects for the existing result API.
+ *
+ * The columns live either on the Java heap or, for very large traces, in direct
+ * memory outside it (see {@link Storage}).
+ */
+public class ProcessTable {
+
+    /** Where the rows are kept. */
+    public enum Storage {
+        /** One primitive array per column. */
+        HEAP,
+        /** Direct buffers outside the Java heap; not scanned or moved by the garbage collector. */
+        OFF_HEAP
+    }
+
+    private final int size;
+    private final Storage storage;
+    private final ProcessStore store;
+
+    // Quantum history of each process; allocated on the first update, which also
+    // records the initial quantum. SUMMARY keeps (count, min, max, final) per pid instead.
+    private QuantumHistory.Mode quantumHistoryMode = QuantumHistory.Mode.FULL;
+    private QuantumHistory[] quantumHistories;
+    private int[] quantumSummaries;
+    // Lists from asProcessList() that still read these rows; they take a copy before the rows change
+    private ArrayList<WeakReference<RowView>> liveViews;
+
+    public ProcessTable(int size) {
+        this(size, Storage.HEAP);
+    }
+
+    public ProcessTable(int size, Storage storage) {
+        this(size, storage, newStore(size, storage));
+    }
+
+    private ProcessTable(int size, Storage storage, ProcessStore store) {
+        this.size = size;
+        this.storage = storage;
+        this.store = store;
+    }
+
+    /**
+     * Appends rows straight to the storage of a new table, for readers that only know the
+     * number of rows at the end. Storage grows as rows come in; nothing is staged elsewhere.
+     */
+    static class Builder {
+        private final Storage storage;
+        private final ProcessStore store;
+        private int size = 0;
+        private int capacity = 16;
+
+        Builder(Storage storage) {
+            this.storage = storage;
+            this.store = newStore(capacity, storage);
+        }
+
+        void add(String name, int arrival, int burst, int priority, int quantum) {
+            if (size == capacity) {
+                int max = Integer.MAX_VALUE - 8;
+                if (capacity == max) throw new IllegalStateException("too many processes");
+                // Grows by half, without overflowing on the way to the largest array
+                capacity = capacity > max - (capacity >> 1) ? max : capacity + (capacity >> 1);
+                store.ensureCapacity(capacity);
+            }
+            store.setName(size, name);
+            store.set(size, ProcessStore.ARRIVAL, arrival);
+            store.set(size, ProcessStore.BURST, burst);
+            store.set(size, ProcessStore.PRIORITY, priority);
+            store.set(size, ProcessStore.QUANTUM, quantum);
+            size++;
+        }
+
+        ProcessTable build() {
+            ProcessTable table = new ProcessTable(size, storage, store);
+            table.reset();
+            return table;
+        }
+    }
+
+    private static ProcessStore newStore(int size, Storage storage) {
+        return storage == Storage.OFF_HEAP ? new OffHeapProcessStore(size) : new HeapProcessStore(size);
+    }
+
+    private static ProcessStore newStateStore(int size, Storage storage) {
+        return storage == Storage.OFF_HEAP ? OffHeapProcessStore.stateOnly(size) : HeapProcessStore.stateOnly(size);
+    }
+
+    /** Copies the input attributes of each process; pids follow list order. */
+    public static ProcessTable from(List<Process> processes) {
+        return from(processes, Storage.HEAP);
+    }
+
+    public static ProcessTable from(List<Process> processes, Storage storage) {
+        ProcessTable table = new ProcessTable(processes.size(), storage);
+        for (int pid = 0; pid < processes.size(); pid++) {
+            Process p = processes.get(pid);
+            table.set(pid, p.getName(), p.getArrivalTime(), p.getTotalBurstTime(), p.getInitialPriority(), p.getInitialQuantum());
+        }
+        return table;
+    }
+
+    public static ProcessTable fromSpecs(List<ProcessSpec> specs) {
+        return fromSpecs(specs, Storage.HEAP);
+    }
+
+    public static ProcessTable fromSpecs(List<ProcessSpec> specs, Storage storage) {
+        ProcessTable table = new ProcessTable(specs.size(), storage);
+        for (int pid = 0; pid < specs.size(); pid++) {
+            ProcessSpec s = specs.get(pid);
+            table.set(pid, s.getName(), s.getArrivalTime(), s.getTotalBurstTime(), s.getInitialPriority(), s.getInitialQuantum());
+        }
+        return table;
+    }
+
+    /**
+     * A table over the same input rows with scheduling state of its own, in its initial state.
+     * The input is shared, not copied: runs on this table and on others made the same way may
+     * proceed concurrently, but the input attributes of the new table cannot be changed.
+     */
+    public ProcessTable newRun() {
+        ProcessTable run = new ProcessTable(size, storage, new RunStateStore(store, newStateStore(size, storage)));
+        run.reset();
+        return run;
+    }
+
+    /**
+     * A {@link #newRun()} with initial quanta of its own, starting out as this table's, which
+     * {@link #setInitialQuantum} may change; the rest of the input is still shared.
+     */
+    public ProcessTable newRunWithOwnQuanta() {
+        int[] quanta = new int[size];
+        for (int pid = 0; pid < size; pid++) quanta[pid] = getInitialQuantum(pid);
+        ProcessTable run = new ProcessTable(size, storage, new RunStateStore(store, newStateStore(size, storage), quanta));
+        run.reset();
+        return run;
+    }
+
+    /**
+     * A table over input rows only, such as a mapped trace. It has no scheduling state of its own,
+     * so it is scheduled through {@link #newRun()}, whose state goes to {@code runStorage}.
+     */
+    static ProcessTable inputOnly(ProcessStore input, int size, Storage runStorage) {
+        return new ProcessTable(size, runStorage, input);
+    }
+
+    /** A new table with the same processes and storage, in its initial state. */
+    public ProcessTable copy() {
+        ProcessTable copy = new ProcessTable(size, storage);
+        for (int pid = 0; pid < size; pid++) {
+            copy.set(pid, getName(pid), getArrivalTime(pid), getTotalBurstTime(pid), getInitialPriority(pid), getInitialQuantum(pid));
+        }
+        return copy;
+    }
+
+    /** Fills the input attributes of one row and resets its scheduling state. */
+    public void set(int pid, String name, int arrival, int burst, int priority, int quantum) {
+        detachViews();
+        store.setName(pid, name);
+        store.set(pid, ProcessStore.ARRIVAL, arrival);
+        store.set(pid, ProcessStore.BURST, burst);
+        store.set(pid, ProcessStore.PRIORITY, priority);
+        store.set(pid, ProcessStore.QUANTUM, quantum);
+        resetRow(pid);
+    }
+
+    /** Clears all scheduling state and results, so the same table can be scheduled again. */
+    public void reset() {
+        detachViews();
+        for (int pid = 0; pid < size; pid++) resetRow(pid);
+        quantumHistories = null;
+        quantumSummaries = null;
+    }
+
+    private void resetRow(int pid) {
+        store.set(pid, ProcessStore.REMAINING, store.get(pid, ProcessStore.BURST));
+        store.set(pid, ProcessStore.CURRENT_QUANTUM, store.get(pid, ProcessStore.QUANTUM));
+        store.set(pid, ProcessStore.REMAINING_QUANTUM, store.get(pid, ProcessStore.QUANTUM));
+        store.set(pid, ProcessStore.DYNAMIC_PRIORITY, store.get(pid, ProcessStore.PRIORITY));
+        store.set(pid, ProcessStore.LAST_UPDATE, 0);
+        store.set(pid, ProcessStore.START, -1);
+        store.set(pid, ProcessStore.COMPLETION, 0);
+        store.set(pid, ProcessStore.WAITING, 0);
+        store.set(pid, ProcessStore.TURNAROUND, 0);
+    }
+
+    public int size() { return size; }
+
+    public Storage getStorage() { return storage; }
+
+    public QuantumHistory.Mode getQuantumHistoryMode() { return quantumHistoryMode; }
+
+    /** How much of the quantum history to keep from now on; drops anything recorded so far. */
+    public void setQuantumHistoryMode(QuantumHistory.Mode mode) {
+        detachViews();
+        this.quantumHistoryMode = mode;
+        quantumHistories = null;
+        quantumSummaries = null;
+    }
+
+    // Utility Methods
+    public boolean isCompleted(int pid) {
+        return getRemainingBurstTime(pid) <= 0;
+    }
+
+    public void execute(int pid, int timeSlice) {
+        setRemainingBurstTime(pid, getRemainingBurstTime(pid) - timeSlice);
+    }
+
+    /** Records completion at {@code time} and derives turnaround and waiting time. */
+    public void complete(int pid, int time) {
+        setCompletionTime(pid, time);
+        setTurnaroundTime(pid, time - getArrivalTime(pid));
+        setWaitingTime(pid, getTurnaroundTime(pid) - getTotalBurstTime(pid));
+    }
+
+    public void logQuantumUpdate(int pid) {
+        int quantum = getCurrentQuantum(pid);
+
+        switch (quantumHistoryMode) {
+            case FULL:
+                if (quantumHistories == null) quantumHistories = new QuantumHistory[size];
+                QuantumHistory history = quantumHistories[pid];
+                if (history == null) {
+                    history = quantumHistories[pid] = new QuantumHistory(QuantumHistory.Mode.FULL);
+                    history.add(getInitialQuantum(pid));
+                }
+                history.add(quantum);
+                break;
+
+            case SUMMARY:
+                if (quantumSummaries == null) quantumSummaries = new int[4 * size];
+                int i = 4 * pid;
+                if (quantumSummaries[i] == 0) {
+                    int initial = getInitialQuantum(pid);
+                    quantumSummaries[i] = 1;
+                    quantumSummaries[i + 1] = initial;
+                    quantumSummaries[i + 2] = initial;
+                }
+                quantumSummaries[i]++;
+                quantumSummaries[i + 1] = Math.min(quantumSummaries[i + 1], quantum);
+                quantumSummaries[i + 2] = Math.max(quantumSummaries[i + 2], quantum);
+                quantumSummaries[i + 3] = quantum;
+                break;
+
+            case NONE:
+                break;
+        }
+    }
+
+    /** Quantum history of one process, including its initial quantum. */
+    public QuantumHistory getQuantumHistory(int pid) {
+        switch (quantumHistoryMode) {
+            case FULL:
+                if (quantumHistories != null && quantumHistories[pid] != null) return quantumHistories[pid].copy();
+                QuantumHistory history = new QuantumHistory(QuantumHistory.Mode.FULL);
+                history.add(getInitialQuantum(pid));
+                return history;
+
+            case SUMMARY:
+                int i = 4 * pid;
+                if (quantumSummaries != null && quantumSummaries[i] > 0) {
+                    return QuantumHistory.summary(quantumSummaries[i], quantumSummaries[i + 1],
+                            quantumSummaries[i + 2], quantumSummaries[i + 3]);
+                }
+                int initial = getInitialQuantum(pid);
+                return QuantumHistory.summary(1, initial, initial, initial);
+
+            default:
+                return new QuantumHistory(QuantumHistory.Mode.NONE);
+        }
+    }
+
+    /** Replaces the quantum history of one process, e.g. with one saved from an earlier run. */
+    public void setQuantumHistory(int pid, QuantumHistory history) {
+        switch (quantumHistoryMode) {
+            case FULL:
+                if (quantumHistories == null) quantumHistories = new QuantumHistory[size];
+                quantumHistories[pid] = history.copy();
+                break;
+
+            case SUMMARY:
+                if (quantumSummaries == null) quantumSummaries = new int[4 * size];
+                int i = 4 * pid;
+                quantumSummaries[i] = history.count();
+                quantumSummaries[i + 1] = history.min();
+                quantumSummaries[i + 2] = history.max();
+                quantumSummaries[i + 3] = history.last();
+                break;
+
+            case NONE:
+                break;
+        }
+    }
+
+    public double averageWaitingTime() {
+        double sum = 0;
+        for (int pid = 0; pid < size; pid++) sum += getWaitingTime(pid);
+        return sum / size;
+    }
+
+    public double averageTurnaroundTime() {
+        double sum = 0;
+        for (int pid = 0; pid < size; pid++) sum += getTurnaroundTime(pid);
+        return sum / size;
+    }
+
+    /** Same as {@code getName(a).compareTo(getName(b))}, without building Strings for off-heap rows. */
+    public int compareNames(int a, int b) {
+        return store.compareNames(a, b);
+    }
+
+    // Memory Report
+    public long heapBytes() {
+        long bytes = store.heapBytes();
+        if (quantumSummaries != null) bytes += 16 + 4L * quantumSummaries.length;
+        if (quantumHistories != null) {
+            bytes += 16 + 4L * quantumHistories.length;
+            for (QuantumHistory history : quantumHistories) {
+                if (history != null) bytes += history.heapBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public long offHeapBytes() {
+        return store.offHeapBytes();
+    }
+
+    public String memoryReport() {
+        return String.format("%s storage, %d processes: heap %,d bytes, off-heap %,d bytes",
+                storage, size, heapBytes(), offHeapBytes());
+    }
+
+    // Getters
+    public ProcessSpec getSpec(int pid) {
+        return new ProcessSpec(getName(pid), getArrivalTime(pid), getTotalBurstTime(pid), getInitialPriority(pid), getInitialQuantum(pid));
+    }
+
+    public String getName(int pid) { return store.getName(pid); }
+    public int getArrivalTime(int pid) { return store.get(pid, ProcessStore.ARRIVAL); }
+    public int getTotalBurstTime(int pid) { return store.get(pid, ProcessStore.BURST); }
+    public int getInitialPriority(int pid) { return store.get(pid, ProcessStore.PRIORITY); }
+    public int getInitialQuantum(int pid) { return store.get(pid, ProcessStore.QUANTUM); }
+
+    public int getRemainingBurstTime(int pid) { return store.get(pid, ProcessStore.REMAINING); }
+    public int getCurrentQuantum(int pid) { return store.get(pid, ProcessStore.CURRENT_QUANTUM); }
+    public int getRemainingQuantum(int pid) { return store.get(pid, ProcessStore.REMAINING_QUANTUM); }
+    public int getDynamicPriority(int pid) { return store.get(pid, ProcessStore.DYNAMIC_PRIORITY); }
+    public int getLastUpdate(int pid) { return store.get(pid, ProcessStore.LAST_UPDATE); }
+
+    public int getStartTime(int pid) { return store.get(pid, ProcessStore.START); }
+    public int getCompletionTime(int pid) { return store.get(pid, ProcessStore.COMPLETION); }
+    public int getWaitingTime(int pid) { return store.get(pid, ProcessStore.WAITING); }
+    public int getTurnaroundTime(int pid) { return store.get(pid, ProcessStore.TURNAROUND); }
+
+    // Setters
+    public void setRemainingBurstTime(int pid, int value) { store.set(pid, ProcessStore.REMAINING, value); }
+    public void setCurrentQuantum(int pid, int value) { store.set(pid, ProcessStore.CURRENT_QUANTUM, value); }
+    public void setRemainingQuantum(int pid, int value) { store.set(pid, ProcessStore.REMAINING_QUANTUM, value); }
+    public void setDynamicPriority(int pid, int value) { store.set(pid, ProcessStore.DYNAMIC_PRIORITY, value); }
+    public void setLastUpdate(int pid, int value) { store.set(pid, ProcessStore.LAST_UPDATE, value); }
+    public void setWaitingTime(int pid, int value) { store.set(pid, ProcessStore.WAITING, value); }
+    public void setTurnaroundTime(int pid, int value) { store.set(pid, ProcessStore.TURNAROUND, value); }
+    public void setCompletionTime(int pid, int value) { store.set(pid, ProcessStore.COMPLETION, value); }
+    public void setStartTime(int pid, int value) {
+        if (getStartTime(pid) == -1) store.set(pid, ProcessStore.START, value);
+    }
+
+    /** Changes an input attribute; takes effect at the next {@link #reset()}. */
+    public void setInitialQuantum(int pid, int value) {
+        detachViews();
+        store.set(pid, ProcessStore.QUANTUM, value);
+    }
+
+    /**
+     * The rows as {@link Process} objects, in pid order, as they are now: later runs or resets
+     * of this table do not change the list. The list reads this table until it is next reset or
+     * its input is changed, and only then, if the list is still reachable, copies the rows and
+     * quantum histories (shared read-only input is not copied); a list that is dropped first
+     * costs nothing. A {@link Process} is built the first time its row is read and then kept,
+     * so changes made to it stay.
+     */
+    public List<Process> asProcessList() {
+        if (liveViews == null) liveViews = new ArrayList<>();
+        liveViews.removeIf(ref -> ref.get() == null);
+        RowView view = new RowView(this);
+        liveViews.add(new WeakReference<>(view));
+        return view;
+    }
+
+    // Gives the lists still reading this table a copy of their own, before its rows change
+    private void detachViews() {
+        if (liveViews == null) return;
+        ProcessTable frozen = null;
+        for (WeakReference<RowView> ref : liveViews) {
+            RowView view = ref.get();
+            if (view == null) continue;
+            if (frozen == null) frozen = frozenCopy();
+            view.table = frozen;
+        }
+        liveViews = null;
+    }
+
+    // A table with the rows and quantum histories of this one, which nothing else writes to
+    private ProcessTable frozenCopy() {
+        ProcessStore rows;
+        if (store instanceof RunStateStore) {
+            rows = ((RunStateStore) store).withState(newStateStore(size, storage));
+            for (int pid = 0; pid < size; pid++) {
+                for (int column = ProcessStore.REMAINING; column < ProcessStore.COLUMNS; column++) {
+                    rows.set(pid, column, store.get(pid, column));
+                }
+            }
+        } else {
+            rows = newStore(size, storage);
+            for (int pid = 0; pid < size; pid++) {
+                rows.setName(pid, store.getName(pid));
+                for (int column = 0; column < ProcessStore.COLUMNS; column++) rows.set(pid, column, store.get(pid, column));
+            }
+        }
+
+        ProcessTable frozen = new ProcessTable(size, storage, rows);
+        frozen.quantumHistoryMode = quantumHistoryMode;
+        if (quantumSummaries != null) frozen.quantumSummaries = quantumSummaries.clone();
+        if (quantumHistories != null) {
+            frozen.quantumHistories = new QuantumHistory[size];
+            for (int pid = 0; pid < size; pid++) {
+                if (quantumHistories[pid] != null) frozen.quantumHistories[pid] = quantumHistories[pid].copy();
+            }
+        }
+        return frozen;
+    }
+
+    private Process toProcess(int pid) {
+        Process p = new Process(getName(pid), getArrivalTime(pid), getTotalBurstTime(pid), getInitialPriority(pid), getInitialQuantum(pid));
+        p.setPid(pid);
+        p.setRemainingBurstTime(getRemainingBurstTime(pid));
+        p.setCurrentQuantum(getCurrentQuantum(pid));
+        p.setDynamicPriority(getDynamicPriority(pid));
+        p.setLastUpdate(getLastUpdate(pid));
+        p.setWaitingTime(getWaitingTime(pid));
+        p.setTurnaroundTime(getTurnaroundTime(pid));
+        p.setCompletionTime(getCompletionTime(pid));
+        if (getStartTime(pid) >= 0) p.setStartTime(getStartTime(pid));
+        p.setQuantumHistory(getQuantumHistory(pid));
+        return p;
+    }
+
+    private static class RowView extends AbstractList<Process> implements RandomAccess {
+        private ProcessTable table;   // this table until its rows change, then a frozen copy
+        private Process[] built;   // allocated on the first read
+
+        RowView(ProcessTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public Process get(int pid) {
+            if (pid < 0 || pid >= table.size) throw new IndexOutOfBoundsException("pid " + pid);
+            if (built == null) built = new Process[table.size];
+            Process process = built[pid];
+            if (process == null) process = built[pid] = table.toProcess(pid);
+            return process;
+        }
+
+        @Override
+        public int size() {
+            return table.size;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Quantum values a process went through, stored without boxing.
+ *
+ * In {@link Mode#FULL} the values are kept as run-length encoded deltas: each run is
+ * a zig-zag varint delta followed by a varint repeat count, so the usual AG pattern
+ * of repeated "+2" updates costs two bytes per run instead of an Integer per update.
+ * {@link Mode#SUMMARY} only keeps count, min, max and final value, and
+ * {@link Mode#NONE} keeps nothing.
+ */
+public class QuantumHistory {
+
+    public enum Mode { FULL, SUMMARY, NONE }
+
+    private final Mode mode;
+
+    // Summary (FULL and SUMMARY)
+    private int count = 0;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+    private int last = 0;
+
+    // Encoded runs (FULL only); the current run stays open until the delta changes
+    private byte[] runs;
+    private int runsLength = 0;
+    private int openDelta = 0;
+    private int openCount = 0;
+
+    public QuantumHistory(Mode mode) {
+        this.mode = mode;
+        if (mode == Mode.FULL) runs = new byte[8];
+    }
+
+    /** A SUMMARY-mode history with the given statistics. */
+    public static QuantumHistory summary(int count, int min, int max, int last) {
+        QuantumHistory h = new QuantumHistory(Mode.SUMMARY);
+        h.count = count;
+        h.min = min;
+        h.max = max;
+        h.last = last;
+        return h;
+    }
+
+    public void add(int quantum) {
+        if (mode == Mode.NONE) return;
+
+        if (mode == Mode.FULL) {
+            int delta = quantum - last;
+            if (openCount > 0 && delta == openDelta) {
+                openCount++;
+            } else {
+                flushRun();
+                openDelta = delta;
+                openCount = 1;
+            }
+        }
+
+        count++;
+        min = Math.min(min, quantum);
+        max = Math.max(max, quantum);
+        last = quantum;
+    }
+
+    public Mode getMode() { return mode; }
+    public int count() { return count; }
+    public int min() { return count == 0 ? 0 : min; }
+    public int max() { return count == 0 ? 0 : max; }
+    public int last() { return last; }
+
+    /** Approximate bytes this history holds on the heap, including the encoding buffer. */
+    public long heapBytes() {
+        return 48 + (runs == null ? 0 : 16 + runs.length);
+    }
+
+    /** Bytes used by the encoded values; 0 unless in FULL mode. */
+    public int encodedBytes() {
+        return runs == null ? 0 : runsLength + 10;
+    }
+
+    /** All values in order. Empty unless in FULL mode. */
+    public List<Integer> toList() {
+        if (mode != Mode.FULL) return Collections.emptyList();
+
+        int[] values = toArray();
+        return new AbstractList<Integer>() {
+            @Override public Integer get(int index) { return values[index]; }
+            @Override public int size() { return values.length; }
+        };
+    }
+
+    public int[] toArray() {
+        if (mode != Mode.FULL) return new int[0];
+
+        int[] values = new int[count];
+        int n = 0, value = 0;
+        int[] cursor = { 0 };
+        while (cursor[0] < runsLength) {
+            int delta = unzigzag(readVarint(cursor));
+            int repeat = readVarint(cursor);
+            for (int i = 0; i < repeat; i++) values[n++] = value += delta;
+        }
+        for (int i = 0; i < openCount; i++) values[n++] = value += openDelta;
+        return values;
+    }
+
+    public QuantumHistory copy() {
+        QuantumHistory h = new QuantumHistory(mode);
+        h.count = count;
+        h.min = min;
+        h.max = max;
+        h.last = last;
+        if (runs != null) h.runs = Arrays.copyOf(runs, Math.max(8, runsLength));
+        h.runsLength = runsLength;
+        h.openDelta = openDelta;
+        h.openCount = openCount;
+        return h;
+    }
+
+    /** Writes the history in its encoded form; {@link #readFrom} gives back an equal one. */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(mode.ordinal());
+        out.writeInt(count);
+        out.writeInt(min);
+        out.writeInt(max);
+        out.writeInt(last);
+        out.writeInt(runsLength);
+        if (runs != null) out.write(runs, 0, runsLength);
+        out.writeInt(openDelta);
+        out.writeInt(openCount);
+    }
+
+    public static QuantumHistory readFrom(DataInput in) throws IOException {
+        QuantumHistory h = new QuantumHistory(Mode.values()[in.readByte()]);
+        h.count = in.readInt();
+        h.min = in.readInt();
+        h.max = in.readInt();
+        h.last = in.readInt();
+        h.runsLength = in.readInt();
+        if (h.runs != null) {
+            h.runs = new byte[Math.max(8, h.runsLength)];
+            in.readFully(h.runs, 0, h.runsLength);
+        }
+        h.openDelta = in.readInt();
+        h.openCount = in.readInt();
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        if (mode == Mode.FULL) return new ArrayList<>(toList()).toString();
+        if (mode == Mode.SUMMARY) return String.format("{count=%d, min=%d, max=%d, final=%d}", count, min(), max(), last);
+        return "{}";
+    }
+
+    private void flushRun() {
+        if (openCount == 0) return;
+        writeVarint(zigzag(openDelta));
+        writeVarint(openCount);
+        openCount = 0;
+    }
+
+    private void writeVarint(int value) {
+        if (runsLength + 5 > runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+        while ((value & ~0x7F) != 0) {
+            runs[runsLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        runs[runsLength++] = (byte) value;
+    }
+
+    private int readVarint(int[] cursor) {
+        int value = 0, shift = 0;
+        byte b;
+        do {
+            b = runs[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+/**
+ * A store whose input columns and names belong to another store, shared read-only,
+ * while the scheduling state is kept in a store of its own.
+ *
+ * This is what lets several runs over one workload proceed at the same time without
+ * copying the input. The state store only needs the state columns; its input columns and
+ * names are never touched. A run may also keep a quantum column of its own, so that its
+ * initial quanta can be changed without touching the shared input.
+ */
+class RunStateStore implements ProcessStore {
+
+    private final ProcessStore input;
+    private final ProcessStore state;
+    private final int[] quanta;   // this run's own initial quanta, or null if they are shared too
+
+    RunStateStore(ProcessStore input, ProcessStore state) {
+        this(input, state, null);
+    }
+
+    RunStateStore(ProcessStore input, ProcessStore state, int[] quanta) {
+        this.input = input;
+        this.state = state;
+        this.quanta = quanta;
+    }
+
+    /** A store over the same input with another state store, and a copy of its own quanta if it has them. */
+    RunStateStore withState(ProcessStore state) {
+        return new RunStateStore(input, state, quanta == null ? null : quanta.clone());
+    }
+
+    @Override
+    public int get(int pid, int column) {
+        if (column >= REMAINING) return state.get(pid, column);
+        return column == QUANTUM && quanta != null ? quanta[pid] : input.get(pid, column);
+    }
+
+    @Override
+    public void set(int pid, int column, int value) {
+        if (column == QUANTUM && quanta != null) {
+            quanta[pid] = value;
+            return;
+        }
+        if (column < REMAINING) throw new UnsupportedOperationException("input columns are shared with other runs");
+        state.set(pid, column, value);
+    }
+
+    @Override
+    public String getName(int pid) {
+        return input.getName(pid);
+    }
+
+    @Override
+    public void setName(int pid, String name) {
+        throw new UnsupportedOperationException("names are shared with other runs");
+    }
+
+    @Override
+    public int compareNames(int a, int b) {
+        return input.compareNames(a, b);
+    }
+
+    // Only the state is charged to this store; the input is reported by its owner
+    @Override
+    public long heapBytes() {
+        return 24 + state.heapBytes() + (quanta == null ? 0 : 16 + 4L * quanta.length);
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return state.offHeapBytes();
+    }
+}
@@ -0,0 +1,241 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Binary trace format: the input of a test file as fixed-width records, opened by mapping
+ * the file instead of parsing it. Opening takes the same time for ten processes or a
+ * hundred million; pages are read by the operating system when a run first touches them.
+ *
+ * The table of an opened trace is the input only. Like any shared input it is scheduled
+ * through {@link ProcessTable#newRun()}, which allocates the scheduling state of one run.
+ *
+ * Layout, little-endian:
+ * <pre>
+ *   header (64 bytes)   magic, version, contextSwitch, rrQuantum, agingInterval, processes, names,
+ *                       reserved int, index offset (long), chars offset (long), chars length (long)
+ *   records             per process: name id, arrival, burst, priority, quantum (5 ints)
+ *   name index          per name id: offset of the name in the character region (long)
+ *   characters          per name: length (int), then UTF-16 chars; never straddles a 1 GB boundary
+ * </pre>
+ * Regions larger than a mapped buffer can hold are mapped in chunks.
+ *
+ * Usage: java model.TraceFile [file.json | directory]...
+ * converts every JSON test file given (default: the AG and Other_Schedulers folders) to a
+ * .trace file next to it.
+ */
+public class TraceFile {
+
+    static final int MAGIC = 0x43525450;   // "PTRC"
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 20;
+
+    static final int RECORD_CHUNK_SHIFT = 26;                  // 64M records, 1.25 GB per chunk
+    static final int RECORD_CHUNK_MASK = (1 << RECORD_CHUNK_SHIFT) - 1;
+    static final int INDEX_CHUNK_SHIFT = 27;                   // 128M names, 1 GB per chunk
+    static final int INDEX_CHUNK_MASK = (1 << INDEX_CHUNK_SHIFT) - 1;
+    static final int CHARS_CHUNK_BYTES = 1 << 30;
+
+    private TraceFile() {}
+
+    /** True if the file starts like a trace; anything else is taken to be JSON. */
+    public static boolean isTrace(File file) {
+        if (!file.isFile() || file.length() < HEADER_BYTES) return false;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(magic, 0);
+            return magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Opens a trace whose runs keep their state off the heap, like the trace itself. */
+    public static Workload open(Path path) throws IOException {
+        return open(path, ProcessTable.Storage.OFF_HEAP);
+    }
+
+    /**
+     * Maps a trace. The returned table reads its input attributes from the file and cannot be
+     * changed or scheduled itself; the tables from its {@link ProcessTable#newRun()} keep their
+     * state in {@code runStorage}. The mapping stays valid after this returns and is released
+     * with the table.
+     */
+    public static Workload open(Path path, ProcessTable.Storage runStorage) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileBytes = channel.size();
+            if (fileBytes < HEADER_BYTES) throw new IOException("not a trace: " + path);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            if (header.getInt(0) != MAGIC) throw new IOException("not a trace: " + path);
+            if (header.getInt(4) != VERSION) throw new IOException("unsupported trace version " + header.getInt(4) + ": " + path);
+
+            int processes = header.getInt(20);
+            int names = header.getInt(24);
+            long indexOffset = header.getLong(32);
+            long charsOffset = header.getLong(40);
+            long charsBytes = header.getLong(48);
+            if (processes < 0 || names < 0 || indexOffset < HEADER_BYTES + (long) RECORD_BYTES * processes
+                    || charsOffset < indexOffset + 8L * names || charsOffset + charsBytes > fileBytes) {
+                throw new IOException("truncated or corrupt trace: " + path);
+            }
+
+            ByteBuffer[] records = map(channel, HEADER_BYTES, (long) RECORD_BYTES * processes, (long) RECORD_BYTES << RECORD_CHUNK_SHIFT);
+            ByteBuffer[] index = map(channel, indexOffset, 8L * names, 8L << INDEX_CHUNK_SHIFT);
+            ByteBuffer[] chars = map(channel, charsOffset, charsBytes, CHARS_CHUNK_BYTES);
+
+            MappedProcessStore input = new MappedProcessStore(records, index, chars, fileBytes);
+            Workload workload = new Workload();
+            workload.processes = ProcessTable.inputOnly(input, processes, runStorage);
+            workload.contextSwitch = header.getInt(8);
+            workload.rrQuantum = header.getInt(12);
+            workload.agingInterval = header.getInt(16);
+            return workload;
+        }
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, long offset, long length, long chunkBytes) throws IOException {
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((length + chunkBytes - 1) / chunkBytes)];
+        for (int c = 0; c < chunks.length; c++) {
+            long start = c * chunkBytes;
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, Math.min(chunkBytes, length - start))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    /** Writes the input of a workload as a trace; processes with the same name share one name id. */
+    public static void write(Workload workload, Path path) throws IOException {
+        ProcessTable table = workload.processes;
+        int n = table.size();
+        long indexOffset = (HEADER_BYTES + (long) RECORD_BYTES * n + 7) & ~7L;
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();   // by name id, in order of first use
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel, HEADER_BYTES);
+
+            for (int pid = 0; pid < n; pid++) {
+                String name = table.getName(pid);
+                Integer id = ids.putIfAbsent(name, names.size());
+                if (id == null) {
+                    id = names.size();
+                    names.add(name);
+                }
+                out.putInt(id);
+                out.putInt(table.getArrivalTime(pid));
+                out.putInt(table.getTotalBurstTime(pid));
+                out.putInt(table.getInitialPriority(pid));
+                out.putInt(table.getInitialQuantum(pid));
+            }
+            while (out.position() < indexOffset) out.putByte(0);
+            long charsOffset = indexOffset + 8L * names.size();
+
+            long charsBytes = 0;
+            for (String name : names) {
+                charsBytes = nameStart(charsBytes, name.length());
+                out.putLong(charsBytes);
+                charsBytes += 4 + 2L * name.length();
+            }
+
+            for (String name : names) {
+                long start = nameStart(out.position() - charsOffset, name.length());
+                while (out.position() - charsOffset < start) out.putByte(0);
+                out.putInt(name.length());
+                for (int i = 0; i < name.length(); i++) out.putChar(name.charAt(i));
+            }
+            out.flush();
+
+            // The header goes last, so a file cut short by a failed write is never taken for a trace
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(workload.contextSwitch).putInt(workload.rrQuantum).putInt(workload.agingInterval)
+                    .putInt(n).putInt(names.size()).putInt(0)
+                    .putLong(indexOffset).putLong(charsOffset).putLong(charsBytes);
+            header.clear();
+            while (header.hasRemaining()) channel.write(header, header.position());
+        }
+    }
+
+    // Where a name of this length goes if the character region is filled up to offset
+    private static long nameStart(long offset, int length) {
+        long bytes = 4 + 2L * length;
+        if (bytes > CHARS_CHUNK_BYTES) throw new IllegalArgumentException("Process name too long");
+        long chunkStart = offset / CHARS_CHUNK_BYTES * CHARS_CHUNK_BYTES;
+        return offset + bytes > chunkStart + CHARS_CHUNK_BYTES ? chunkStart + CHARS_CHUNK_BYTES : offset;
+    }
+
+    // Sequential little-endian writer over a channel
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        Output(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.flushed = position;
+            channel.position(position);
+        }
+
+        long position() { return flushed + buffer.position(); }
+
+        void putByte(int b) throws IOException { ensure(1); buffer.put((byte) b); }
+        void putChar(char c) throws IOException { ensure(2); buffer.putChar(c); }
+        void putInt(int v) throws IOException { ensure(4); buffer.putInt(v); }
+        void putLong(long v) throws IOException { ensure(8); buffer.putLong(v); }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            flushed += buffer.remaining();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] inputs = args.length > 0 ? args : new String[] { "AG", "Other_Schedulers" };
+        WorkloadReader reader = new WorkloadReader(ProcessTable.Storage.HEAP, false);
+
+        for (String input : inputs) {
+            for (Path json : jsonFiles(Paths.get(input))) {
+                String name = json.getFileName().toString();
+                Path trace = json.resolveSibling(name.substring(0, name.length() - ".json".length()) + ".trace");
+
+                Workload workload = reader.read(json.toFile());
+                write(workload, trace);
+                System.out.printf("%s -> %s (%d processes, %d -> %d bytes)%n",
+                        json, trace, workload.processes.size(), Files.size(json), Files.size(trace));
+            }
+        }
+    }
+
+    private static List<Path> jsonFiles(Path input) throws IOException {
+        if (!Files.isDirectory(input)) return List.of(input);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(input)) {
+            listing.filter(p -> p.toString().endsWith(".json")).sorted().forEach(files::add);
+        }
+        return files;
+    }
+}
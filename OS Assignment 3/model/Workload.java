@@ -0,0 +1,15 @@
+package model;
+
+import java.util.Map;
+
+/** One test file: the processes and run parameters of its input, and the expected output if it was read. */
+public class Workload {
+    public ProcessTable processes;
+
+    public int contextSwitch = 0;
+    public int rrQuantum = 0;
+    public int agingInterval = 5;
+
+    // Null unless requested from WorkloadReader
+    public Map<String, Object> expectedOutput;
+}
@@ -0,0 +1,206 @@
+package model;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic workloads from a seed. The same config and seed always give the same processes.
+ *
+ * Processes are produced one at a time and handed to a {@link Sink}, so a workload of any size
+ * can go straight into a {@link ProcessTable} or a JSON file without being held in memory.
+ *
+ * Usage: java model.WorkloadGenerator &lt;processes&gt; &lt;seed&gt; &lt;output.json&gt;
+ */
+public class WorkloadGenerator {
+
+    public enum BurstDistribution { UNIFORM, EXPONENTIAL, PARETO }
+
+    /** Distribution parameters; the defaults give a moderately loaded, mixed workload. */
+    public static class Config {
+        public int processes = 1000;
+
+        // Arrivals: Poisson process with this many arrivals per time unit on average
+        public double arrivalRate = 0.1;
+        // Arrival storms: with this probability an arrival starts a storm of stormSize
+        // processes that arrive within stormSpread time units of it
+        public double stormProbability = 0.0;
+        public int stormSize = 50;
+        public int stormSpread = 2;
+
+        // Bursts: mean length, plus the tail shape for PARETO (smaller = heavier)
+        public BurstDistribution burstDistribution = BurstDistribution.PARETO;
+        public double meanBurst = 10;
+        public double paretoShape = 1.5;
+        public int maxBurst = 100_000;
+
+        // Priorities 1..maxPriority, Zipf-skewed with this exponent (0 = uniform):
+        // most processes get the lowest priority (maxPriority), few the highest (1)
+        public int maxPriority = 10;
+        public double prioritySkew = 1.0;
+
+        // AG quanta, uniform in [minQuantum, maxQuantum]; AG needs at least 2
+        public int minQuantum = 2;
+        public int maxQuantum = 8;
+
+        // Run parameters written to JSON files
+        public int contextSwitch = 1;
+        public int rrQuantum = 4;
+        public int agingInterval = 5;
+    }
+
+    /** Receives the generated processes in order. */
+    public interface Sink {
+        void accept(int index, String name, int arrival, int burst, int priority, int quantum) throws IOException;
+    }
+
+    private final Config config;
+    private final long seed;
+    private final double[] priorityCdf;
+
+    public WorkloadGenerator(Config config, long seed) {
+        if (config.minQuantum < 2 || config.maxQuantum < config.minQuantum) {
+            throw new IllegalArgumentException("quantum range must satisfy 2 <= minQuantum <= maxQuantum");
+        }
+        this.config = config;
+        this.seed = seed;
+
+        priorityCdf = new double[config.maxPriority];
+        double total = 0;
+        for (int rank = 1; rank <= config.maxPriority; rank++) {
+            total += 1 / Math.pow(rank, config.prioritySkew);
+            priorityCdf[rank - 1] = total;
+        }
+        for (int i = 0; i < priorityCdf.length; i++) priorityCdf[i] /= total;
+    }
+
+    public void generate(Sink sink) throws IOException {
+        Random random = new Random(seed);
+        double time = 0;
+        int stormLeft = 0;
+        int stormStart = 0;
+
+        for (int i = 0; i < config.processes; i++) {
+            int arrival;
+            if (stormLeft > 0) {
+                stormLeft--;
+                arrival = Math.addExact(stormStart, random.nextInt(config.stormSpread + 1));
+            } else {
+                time += -Math.log(1 - random.nextDouble()) / config.arrivalRate;
+                // Times are ints everywhere else; a cast would pile the rest up at the largest one
+                if (time > Integer.MAX_VALUE) {
+                    throw new ArithmeticException("process " + (i + 1) + " arrives past the int clock; raise arrivalRate or lower processes");
+                }
+                arrival = (int) time;
+                if (random.nextDouble() < config.stormProbability) {
+                    stormLeft = config.stormSize - 1;
+                    stormStart = arrival;
+                }
+            }
+
+            sink.accept(i, "P" + (i + 1), arrival, burst(random), priority(random),
+                    config.minQuantum + random.nextInt(config.maxQuantum - config.minQuantum + 1));
+        }
+    }
+
+    private int burst(Random random) {
+        double mean = config.meanBurst;
+        double burst;
+        switch (config.burstDistribution) {
+            case UNIFORM:
+                burst = 1 + random.nextInt((int) Math.max(1, 2 * mean - 1));
+                break;
+            case EXPONENTIAL:
+                // Geometric on 1, 2, ..., the discrete exponential, whose mean is exactly meanBurst
+                burst = mean <= 1 ? 1 : Math.ceil(-Math.log(1 - random.nextDouble()) / -Math.log1p(-1 / mean));
+                break;
+            default:
+                // Pareto with the given shape, scaled so the mean is meanBurst (for shape > 1)
+                double shape = config.paretoShape;
+                double scale = shape > 1 ? mean * (shape - 1) / shape : 1;
+                burst = Math.ceil(scale / Math.pow(1 - random.nextDouble(), 1 / shape));
+        }
+        return (int) Math.max(1, Math.min(config.maxBurst, burst));
+    }
+
+    private int priority(Random random) {
+        double u = random.nextDouble();
+        int rank = 0;
+        while (rank < priorityCdf.length - 1 && priorityCdf[rank] < u) rank++;
+        return config.maxPriority - rank;
+    }
+
+    public ProcessTable toTable(ProcessTable.Storage storage) {
+        ProcessTable table = new ProcessTable(config.processes, storage);
+        try {
+            generate((index, name, arrival, burst, priority, quantum) -> table.set(index, name, arrival, burst, priority, quantum));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);   // the table sink does no I/O
+        }
+        return table;
+    }
+
+    public List<Process> toProcesses() {
+        List<Process> processes = new ArrayList<>(config.processes);
+        try {
+            generate((index, name, arrival, burst, priority, quantum) -> processes.add(new Process(name, arrival, burst, priority, quantum)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return processes;
+    }
+
+    /**
+     * Writes the workload in the test file format, one process at a time.
+     * The expected output names SJF, RR and Priority with no expected values, so the
+     * test runner runs all of them on the file.
+     */
+    public void writeJson(Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+
+        json.name("input").beginObject();
+        json.name("contextSwitch").value(config.contextSwitch);
+        json.name("rrQuantum").value(config.rrQuantum);
+        json.name("agingInterval").value(config.agingInterval);
+        json.name("processes").beginArray();
+        generate((index, name, arrival, burst, priority, quantum) -> {
+            json.beginObject();
+            json.name("name").value(name);
+            json.name("arrival").value(arrival);
+            json.name("burst").value(burst);
+            json.name("priority").value(priority);
+            json.name("quantum").value(quantum);
+            json.endObject();
+        });
+        json.endArray();
+        json.endObject();
+
+        json.name("expectedOutput").beginObject();
+        for (String scheduler : new String[] { "SJF", "RR", "Priority" }) {
+            json.name(scheduler).beginObject().endObject();
+        }
+        json.endObject();
+
+        json.endObject();
+        json.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java model.WorkloadGenerator <processes> <seed> <output.json>");
+            return;
+        }
+        Config config = new Config();
+        config.processes = Integer.parseInt(args[0]);
+
+        try (Writer out = new BufferedWriter(new FileWriter(args[2]), 1 << 16)) {
+            new WorkloadGenerator(config, Long.parseLong(args[1])).writeJson(out);
+        }
+    }
+}
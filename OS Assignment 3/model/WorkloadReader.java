@@ -0,0 +1,129 @@
+package model;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Reads the JSON test format token by token with Gson's {@link JsonReader}.
+ *
+ * {@code input.processes} goes row by row straight into the storage of a {@link ProcessTable},
+ * which grows as rows come in; no maps, boxed numbers, {@link Process} objects or staging
+ * copies are created, so files with millions of processes load in one pass.
+ * Only {@code expectedOutput}, which is small, is read as a map, and only on request.
+ */
+public class WorkloadReader {
+
+    private static final Gson gson = new Gson();
+
+    private final ProcessTable.Storage storage;
+    private final boolean readExpected;
+
+    public WorkloadReader() {
+        this(ProcessTable.Storage.HEAP, true);
+    }
+
+    public WorkloadReader(ProcessTable.Storage storage, boolean readExpected) {
+        this.storage = storage;
+        this.readExpected = readExpected;
+    }
+
+    /**
+     * Binary traces (see {@link TraceFile}) are mapped instead. Their table is input only and is
+     * scheduled through {@link ProcessTable#newRun()}; they have no expected output.
+     */
+    public Workload read(File file) throws IOException {
+        if (TraceFile.isTrace(file)) return TraceFile.open(file.toPath(), storage);
+        try (Reader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+            return read(reader);
+        }
+    }
+
+    public Workload read(Reader reader) throws IOException {
+        Workload workload = new Workload();
+        JsonReader json = new JsonReader(reader);
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "input":
+                    readInput(json, workload);
+                    break;
+                case "expectedOutput":
+                    if (readExpected) {
+                        workload.expectedOutput = gson.fromJson(json, Map.class);
+                    } else {
+                        json.skipValue();
+                    }
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (workload.processes == null) throw new IOException("missing input.processes");
+        return workload;
+    }
+
+    private void readInput(JsonReader json, Workload workload) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "processes":     workload.processes = readProcesses(json); break;
+                case "contextSwitch": workload.contextSwitch = readInt(json); break;
+                case "rrQuantum":     workload.rrQuantum = readInt(json); break;
+                case "agingInterval": workload.agingInterval = readInt(json); break;
+                default:              json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    // Numbers may be written as 2 or 2.0, as when the files were read through Gson's maps;
+    // a fraction or a value outside the int range is an error instead of being cut off
+    private static int readInt(JsonReader json) throws IOException {
+        String path = json.getPath();
+        double value = json.nextDouble();
+        if (value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IOException("expected a whole number in int range at " + path + ", found " + value);
+        }
+        return (int) value;
+    }
+
+    private ProcessTable readProcesses(JsonReader json) throws IOException {
+        // The count is unknown until the array ends, so the table's own storage grows instead
+        ProcessTable.Builder table = new ProcessTable.Builder(storage);
+
+        json.beginArray();
+        while (json.hasNext()) {
+            String name = null;
+            int arrival = 0, burst = 0, priority = 0, quantum = 0;
+
+            String path = json.getPath();   // names the process by its index, as in $.input.processes[3]
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name":     name = json.nextString(); break;
+                    case "arrival":  arrival = readInt(json); break;
+                    case "burst":    burst = readInt(json); break;
+                    case "priority": priority = readInt(json); break;
+                    case "quantum":  quantum = readInt(json); break;
+                    default:         json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (name == null) throw new IOException("missing name at " + path);
+            table.add(name, arrival, burst, priority, quantum);
+        }
+        json.endArray();
+
+        return table.build();
+    }
+}